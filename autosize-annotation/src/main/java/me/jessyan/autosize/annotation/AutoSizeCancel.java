@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 让 Activity、Fragment 放弃适配, 效果等同于实现 CancelAdapt 接口或调用 ExternalAdaptManager#addCancelAdaptOfActivity,
+ * 由 autosize-compiler 在编译期生成查询表
+ * <p>
+ * 只对被注解的类本身生效, 不会被子类继承, 不能与 {@link AutoSizeDesign} 同时使用
+ * @author jiwenjie
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface AutoSizeCancel {
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 为 Activity、Fragment 声明自定义的适配参数, 效果等同于实现 CustomAdapt 接口或通过 ExternalAdaptManager 注册
+ * ExternalAdaptInfo, 区别在于由 autosize-compiler 在编译期生成查询表, 运行时不需要 instanceof 检查, 也不需要在启动时逐个注册
+ * <p>
+ * 只对被注解的类本身生效, 不会被子类继承
+ * <p>
+ * Example usage:
+ * 
+ * <pre>
+ * &#64;AutoSizeDesign(sizeInDp = 667, baseOnWidth = false)
+ * public class PlayerActivity extends Activity {
+ * }
+ * </pre>
+ * @author jiwenjie
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface AutoSizeDesign {
+    /**
+     * 设计图上的设计尺寸, 单位 dp, {@link #baseOnWidth()} 为 {@code true} 时为设计图的总宽度, 否则为设计图的总高度
+     * 为 {@code 0} 时使用 AndroidManifest 中填写的设计图尺寸
+     */
+    float sizeInDp() default 0;
+
+    /**
+     * 是否按照宽度进行等比例适配, {@code true} 为按照宽度适配, {@code false} 为按照高度适配
+     */
+    boolean baseOnWidth() default true;
+}
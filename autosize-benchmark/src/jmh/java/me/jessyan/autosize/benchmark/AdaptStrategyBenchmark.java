@@ -0,0 +1,61 @@
+package me.jessyan.autosize.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import android.app.Activity;
+
+import me.jessyan.autosize.AutoAdaptStrategy;
+import me.jessyan.autosize.DefaultAutoAdaptStrategy;
+import me.jessyan.autosize.WrapperAutoAdaptStrategy;
+
+/**
+ * {@link DefaultAutoAdaptStrategy#applyAdapt(Object, Activity)} 对三种 target 的吞吐量, 以及经过
+ * {@link WrapperAutoAdaptStrategy} 包装后 (也就是 ActivityLifecycleCallbacksImpl 实际调用的路径) 的吞吐量
+ * @author jiwenjie
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AdaptStrategyBenchmark {
+    private Activity mActivity;
+    private DefaultAutoAdaptStrategy mStrategy;
+    private AutoAdaptStrategy mWrapper;
+    private final Object mGlobalTarget = new BenchmarkEnvironment.GlobalTarget();
+    private final Object mCustomTarget = new BenchmarkEnvironment.CustomTarget();
+    private final Object mCancelTarget = new BenchmarkEnvironment.CancelTarget();
+
+    @Setup
+    public void setUp() {
+        mActivity = BenchmarkEnvironment.setUp().getActivity();
+        mStrategy = new DefaultAutoAdaptStrategy();
+        mWrapper = new WrapperAutoAdaptStrategy(mStrategy);
+    }
+
+    @Benchmark
+    public void global() {
+        mStrategy.applyAdapt(mGlobalTarget, mActivity);
+    }
+
+    @Benchmark
+    public void custom() {
+        mStrategy.applyAdapt(mCustomTarget, mActivity);
+    }
+
+    @Benchmark
+    public void cancel() {
+        mStrategy.applyAdapt(mCancelTarget, mActivity);
+    }
+
+    @Benchmark
+    public void wrappedGlobal() {
+        mWrapper.applyAdapt(mGlobalTarget, mActivity);
+    }
+}
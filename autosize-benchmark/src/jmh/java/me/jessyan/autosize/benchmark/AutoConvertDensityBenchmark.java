@@ -0,0 +1,69 @@
+package me.jessyan.autosize.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import android.app.Activity;
+
+import me.jessyan.autosize.AutoSize;
+import me.jessyan.autosize.DisplayMetricsInfoCache;
+
+/**
+ * {@link AutoSize#autoConvertDensity(Activity, float, boolean)} 以及 {@link AutoSize#cancelAdapt(Activity)}
+ * 的吞吐量
+ * <p>
+ * cacheHit 每次都使用同一个设计尺寸; cacheMiss 轮流使用 {@link #MISS_SIZE_COUNT} 个不同的设计尺寸, 个数大于
+ * {@link DisplayMetricsInfoCache#DEFAULT_MAX_SIZE}, 因此每次都要重新计算并淘汰最旧的缓存
+ * @author jiwenjie
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AutoConvertDensityBenchmark {
+    private static final int MISS_SIZE_COUNT = DisplayMetricsInfoCache.DEFAULT_MAX_SIZE * 2;
+
+    private Activity mActivity;
+    private final float[] mMissSizes = new float[MISS_SIZE_COUNT];
+    private int mMissIndex;
+
+    @Setup
+    public void setUp() {
+        mActivity = BenchmarkEnvironment.setUp().getActivity();
+        for (int i = 0; i < MISS_SIZE_COUNT; i++) {
+            mMissSizes[i] = BenchmarkEnvironment.DESIGN_WIDTH_IN_DP + i;
+        }
+    }
+
+    @Benchmark
+    public void cacheHit() {
+        AutoSize.autoConvertDensity(mActivity, BenchmarkEnvironment.DESIGN_WIDTH_IN_DP, true);
+    }
+
+    @Benchmark
+    public void cacheMiss() {
+        float sizeInDp = mMissSizes[mMissIndex];
+        mMissIndex = (mMissIndex + 1) % MISS_SIZE_COUNT;
+        AutoSize.autoConvertDensity(mActivity, sizeInDp, true);
+    }
+
+    @Benchmark
+    public void cancelAdapt() {
+        AutoSize.cancelAdapt(mActivity);
+    }
+
+    /**
+     * 适配与取消适配交替进行, 每次都会真正写入 {@link android.util.DisplayMetrics}, 而不是因为已经是目标值而跳过
+     */
+    @Benchmark
+    public void adaptThenCancel() {
+        AutoSize.autoConvertDensity(mActivity, BenchmarkEnvironment.DESIGN_WIDTH_IN_DP, true);
+        AutoSize.cancelAdapt(mActivity);
+    }
+}
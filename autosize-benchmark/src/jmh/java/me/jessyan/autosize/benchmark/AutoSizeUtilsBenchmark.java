@@ -0,0 +1,60 @@
+package me.jessyan.autosize.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import android.content.Context;
+
+import me.jessyan.autosize.AutoSize;
+import me.jessyan.autosize.utils.AutoSizeUtils;
+
+/**
+ * {@link AutoSizeUtils} 中各单位转换方法的吞吐量, 使用已经适配过的 Activity
+ * @author jiwenjie
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AutoSizeUtilsBenchmark {
+    private Context mContext;
+    private float mValue = 16f;
+
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment environment = BenchmarkEnvironment.setUp();
+        AutoSize.autoConvertDensityOfGlobal(environment.getActivity());
+        mContext = environment.getActivity();
+    }
+
+    @Benchmark
+    public int dp2px() {
+        return AutoSizeUtils.dp2px(mContext, mValue);
+    }
+
+    @Benchmark
+    public int sp2px() {
+        return AutoSizeUtils.sp2px(mContext, mValue);
+    }
+
+    @Benchmark
+    public int pt2px() {
+        return AutoSizeUtils.pt2px(mContext, mValue);
+    }
+
+    @Benchmark
+    public int in2px() {
+        return AutoSizeUtils.in2px(mContext, mValue);
+    }
+
+    @Benchmark
+    public int mm2px() {
+        return AutoSizeUtils.mm2px(mContext, mValue);
+    }
+}
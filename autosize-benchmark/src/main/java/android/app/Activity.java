@@ -0,0 +1,48 @@
+package android.app;
+
+import android.content.ComponentName;
+import android.content.ContextWrapper;
+import android.view.WindowManager;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public class Activity extends ContextWrapper {
+    private Application mApplication;
+    private WindowManager mWindowManager;
+    private ComponentName mComponent;
+
+    public Activity() {
+        super(null);
+    }
+
+    /**
+     * 对应 framework 中的 Activity#attach
+     */
+    public final void attach(Application application, WindowManager windowManager) {
+        attachBaseContext(application);
+        mApplication = application;
+        mWindowManager = windowManager;
+        mComponent = new ComponentName(application.getPackageName(), getClass().getName());
+    }
+
+    public final Application getApplication() {
+        return mApplication;
+    }
+
+    public WindowManager getWindowManager() {
+        return mWindowManager;
+    }
+
+    public ComponentName getComponentName() {
+        return mComponent;
+    }
+
+    public boolean isFinishing() {
+        return false;
+    }
+
+    public boolean isInMultiWindowMode() {
+        return false;
+    }
+}
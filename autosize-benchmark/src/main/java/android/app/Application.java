@@ -0,0 +1,67 @@
+package android.app;
+
+import java.util.ArrayList;
+import java.util.List;
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Bundle;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public class Application extends ContextWrapper {
+    private final List<ActivityLifecycleCallbacks> mActivityLifecycleCallbacks = new ArrayList<>();
+    private final List<ComponentCallbacks> mComponentCallbacks = new ArrayList<>();
+
+    public Application() {
+        super(null);
+    }
+
+    /**
+     * 对应 framework 中的 Application#attach
+     */
+    public final void attach(Context context) {
+        attachBaseContext(context);
+    }
+
+    @Override
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    public void registerActivityLifecycleCallbacks(ActivityLifecycleCallbacks callback) {
+        mActivityLifecycleCallbacks.add(callback);
+    }
+
+    public void unregisterActivityLifecycleCallbacks(ActivityLifecycleCallbacks callback) {
+        mActivityLifecycleCallbacks.remove(callback);
+    }
+
+    @Override
+    public void registerComponentCallbacks(ComponentCallbacks callback) {
+        mComponentCallbacks.add(callback);
+    }
+
+    public void dispatchActivityCreated(Activity activity, Bundle savedInstanceState) {
+        for (ActivityLifecycleCallbacks callback : mActivityLifecycleCallbacks) {
+            callback.onActivityCreated(activity, savedInstanceState);
+        }
+    }
+
+    public interface ActivityLifecycleCallbacks {
+        void onActivityCreated(Activity activity, Bundle savedInstanceState);
+
+        void onActivityStarted(Activity activity);
+
+        void onActivityResumed(Activity activity);
+
+        void onActivityPaused(Activity activity);
+
+        void onActivityStopped(Activity activity);
+
+        void onActivitySaveInstanceState(Activity activity, Bundle outState);
+
+        void onActivityDestroyed(Activity activity);
+    }
+}
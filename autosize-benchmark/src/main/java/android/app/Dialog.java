@@ -0,0 +1,18 @@
+package android.app;
+
+import android.content.Context;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public class Dialog {
+    private final Context mContext;
+
+    public Dialog(Context context) {
+        mContext = context;
+    }
+
+    public final Context getContext() {
+        return mContext;
+    }
+}
@@ -0,0 +1,12 @@
+package android.content;
+
+import android.content.res.Configuration;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public interface ComponentCallbacks {
+    void onConfigurationChanged(Configuration newConfig);
+
+    void onLowMemory();
+}
@@ -0,0 +1,37 @@
+package android.content;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public final class ComponentName {
+    private final String mPackage;
+    private final String mClass;
+
+    public ComponentName(String pkg, String cls) {
+        mPackage = pkg;
+        mClass = cls;
+    }
+
+    public String getPackageName() {
+        return mPackage;
+    }
+
+    public String getClassName() {
+        return mClass;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ComponentName)) {
+            return false;
+        }
+        ComponentName other = (ComponentName) obj;
+        return mClass.equals(other.mClass)
+                && (mPackage == null ? other.mPackage == null : mPackage.equals(other.mPackage));
+    }
+
+    @Override
+    public int hashCode() {
+        return (mPackage == null ? 0 : mPackage.hashCode()) * 31 + mClass.hashCode();
+    }
+}
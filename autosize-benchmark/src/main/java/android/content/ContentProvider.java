@@ -0,0 +1,40 @@
+package android.content;
+
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
+import android.database.Cursor;
+import android.net.Uri;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public abstract class ContentProvider {
+    private Context mContext;
+
+    public final Context getContext() {
+        return mContext;
+    }
+
+    public void attachInfo(Context context) {
+        mContext = context;
+        onCreate();
+    }
+
+    public abstract boolean onCreate();
+
+    public abstract Cursor query(Uri uri, String[] projection, String selection,
+            String[] selectionArgs, String sortOrder);
+
+    public abstract String getType(Uri uri);
+
+    public abstract Uri insert(Uri uri, ContentValues values);
+
+    public abstract int delete(Uri uri, String selection, String[] selectionArgs);
+
+    public abstract int update(Uri uri, ContentValues values, String selection,
+            String[] selectionArgs);
+
+    public void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+    }
+}
@@ -0,0 +1,7 @@
+package android.content;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public final class ContentValues {
+}
@@ -0,0 +1,32 @@
+package android.content;
+
+import java.io.File;
+
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public abstract class Context {
+    public static final String WINDOW_SERVICE = "window";
+    public static final String DISPLAY_SERVICE = "display";
+
+    public abstract Object getSystemService(String name);
+
+    public abstract Resources getResources();
+
+    public abstract Context getApplicationContext();
+
+    public abstract PackageManager getPackageManager();
+
+    public abstract String getPackageName();
+
+    public abstract ContentResolver getContentResolver();
+
+    public abstract File getFilesDir();
+
+    public void registerComponentCallbacks(ComponentCallbacks callback) {
+        getApplicationContext().registerComponentCallbacks(callback);
+    }
+}
@@ -0,0 +1,10 @@
+package android.content.pm;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public class PackageInfo {
+    public String packageName;
+    public ApplicationInfo applicationInfo;
+    public ActivityInfo[] activities;
+}
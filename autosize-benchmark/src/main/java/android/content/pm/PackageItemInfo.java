@@ -0,0 +1,12 @@
+package android.content.pm;
+
+import android.os.Bundle;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public class PackageItemInfo {
+    public String name;
+    public String packageName;
+    public Bundle metaData;
+}
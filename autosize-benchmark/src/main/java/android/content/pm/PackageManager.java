@@ -0,0 +1,29 @@
+package android.content.pm;
+
+import android.content.ComponentName;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public abstract class PackageManager {
+    public static final int GET_ACTIVITIES = 0x00000001;
+    public static final int GET_META_DATA = 0x00000080;
+
+    public abstract PackageInfo getPackageInfo(String packageName, int flags)
+            throws NameNotFoundException;
+
+    public abstract ApplicationInfo getApplicationInfo(String packageName, int flags)
+            throws NameNotFoundException;
+
+    public abstract ActivityInfo getActivityInfo(ComponentName component, int flags)
+            throws NameNotFoundException;
+
+    public static class NameNotFoundException extends Exception {
+        public NameNotFoundException() {
+        }
+
+        public NameNotFoundException(String name) {
+            super(name);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package android.content.res;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public final class Configuration {
+    public static final int ORIENTATION_PORTRAIT = 1;
+    public static final int ORIENTATION_LANDSCAPE = 2;
+
+    public float fontScale;
+    public int orientation;
+    public int screenWidthDp;
+    public int screenHeightDp;
+    public int densityDpi;
+
+    public Configuration() {
+    }
+
+    public Configuration(Configuration o) {
+        setTo(o);
+    }
+
+    public void setTo(Configuration o) {
+        fontScale = o.fontScale;
+        orientation = o.orientation;
+        screenWidthDp = o.screenWidthDp;
+        screenHeightDp = o.screenHeightDp;
+        densityDpi = o.densityDpi;
+    }
+}
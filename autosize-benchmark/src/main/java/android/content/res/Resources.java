@@ -0,0 +1,71 @@
+package android.content.res;
+
+import java.util.HashMap;
+import java.util.Map;
+import android.util.DisplayMetrics;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public class Resources {
+    private static Resources sSystem;
+
+    private final DisplayMetrics mMetrics;
+    private final Configuration mConfiguration;
+    private final Map<Integer, Boolean> mBooleans = new HashMap<>();
+    private int mStatusBarHeight;
+
+    public Resources(DisplayMetrics metrics, Configuration config) {
+        mMetrics = metrics;
+        mConfiguration = config;
+    }
+
+    public static Resources getSystem() {
+        return sSystem;
+    }
+
+    /**
+     * 设置 {@link #getSystem()} 返回的对象, 只存在于 benchmark 的实现中
+     */
+    public static void setSystem(Resources system) {
+        sSystem = system;
+    }
+
+    public DisplayMetrics getDisplayMetrics() {
+        return mMetrics;
+    }
+
+    public Configuration getConfiguration() {
+        return mConfiguration;
+    }
+
+    public boolean getBoolean(int id) throws NotFoundException {
+        Boolean value = mBooleans.get(id);
+        return value != null && value;
+    }
+
+    /**
+     * 设置 bool 资源的值, 只存在于 benchmark 的实现中
+     */
+    public void putBoolean(int id, boolean value) {
+        mBooleans.put(id, value);
+    }
+
+    public int getIdentifier(String name, String defType, String defPackage) {
+        return "status_bar_height".equals(name) ? 1 : 0;
+    }
+
+    public int getDimensionPixelSize(int id) throws NotFoundException {
+        return mStatusBarHeight;
+    }
+
+    /**
+     * 设置 status_bar_height 的值, 只存在于 benchmark 的实现中
+     */
+    public void setStatusBarHeight(int height) {
+        mStatusBarHeight = height;
+    }
+
+    public static class NotFoundException extends RuntimeException {
+    }
+}
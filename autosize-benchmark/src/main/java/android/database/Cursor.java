@@ -0,0 +1,11 @@
+package android.database;
+
+import java.io.Closeable;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public interface Cursor extends Closeable {
+    @Override
+    void close();
+}
@@ -0,0 +1,14 @@
+package android.graphics;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public class Point {
+    public int x;
+    public int y;
+
+    public void set(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+}
@@ -0,0 +1,19 @@
+package android.hardware.display;
+
+import android.os.Handler;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public final class DisplayManager {
+    public void registerDisplayListener(DisplayListener listener, Handler handler) {
+    }
+
+    public interface DisplayListener {
+        void onDisplayAdded(int displayId);
+
+        void onDisplayRemoved(int displayId);
+
+        void onDisplayChanged(int displayId);
+    }
+}
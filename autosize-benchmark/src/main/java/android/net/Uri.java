@@ -0,0 +1,26 @@
+package android.net;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public class Uri {
+    private final String mUri;
+
+    private Uri(String uri) {
+        mUri = uri;
+    }
+
+    public static Uri parse(String uriString) {
+        return new Uri(uriString);
+    }
+
+    public String getSchemeSpecificPart() {
+        int index = mUri.indexOf(':');
+        return index >= 0 ? mUri.substring(index + 1) : mUri;
+    }
+
+    @Override
+    public String toString() {
+        return mUri;
+    }
+}
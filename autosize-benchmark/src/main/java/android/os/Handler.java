@@ -0,0 +1,20 @@
+package android.os;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public class Handler {
+    public Handler() {
+    }
+
+    public Handler(Looper looper) {
+    }
+
+    /**
+     * JVM 上没有消息循环, 直接执行
+     */
+    public final boolean post(Runnable r) {
+        r.run();
+        return true;
+    }
+}
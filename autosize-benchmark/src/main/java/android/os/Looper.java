@@ -0,0 +1,24 @@
+package android.os;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public final class Looper {
+    private static final Looper sMainLooper = new Looper();
+    private final MessageQueue mQueue = new MessageQueue();
+
+    private Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        return sMainLooper;
+    }
+
+    public static Looper myLooper() {
+        return sMainLooper;
+    }
+
+    public static MessageQueue myQueue() {
+        return sMainLooper.mQueue;
+    }
+}
@@ -0,0 +1,21 @@
+package android.os;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public final class MessageQueue {
+    private final List<IdleHandler> mIdleHandlers = new ArrayList<>();
+
+    public void addIdleHandler(IdleHandler handler) {
+        synchronized (mIdleHandlers) {
+            mIdleHandlers.add(handler);
+        }
+    }
+
+    public interface IdleHandler {
+        boolean queueIdle();
+    }
+}
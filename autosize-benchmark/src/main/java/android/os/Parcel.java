@@ -0,0 +1,27 @@
+package android.os;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public final class Parcel {
+    public byte readByte() {
+        return 0;
+    }
+
+    public int readInt() {
+        return 0;
+    }
+
+    public float readFloat() {
+        return 0;
+    }
+
+    public void writeByte(byte val) {
+    }
+
+    public void writeInt(int val) {
+    }
+
+    public void writeFloat(float val) {
+    }
+}
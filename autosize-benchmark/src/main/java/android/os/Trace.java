@@ -0,0 +1,12 @@
+package android.os;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public final class Trace {
+    public static void beginSection(String sectionName) {
+    }
+
+    public static void endSection() {
+    }
+}
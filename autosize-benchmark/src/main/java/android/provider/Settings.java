@@ -0,0 +1,19 @@
+package android.provider;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public final class Settings {
+    public static final class Global {
+        public static int getInt(ContentResolver cr, String name, int def) {
+            return def;
+        }
+
+        public static Uri getUriFor(String name) {
+            return Uri.parse("content://settings/global/" + name);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package android.support.v4.app;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public class Fragment {
+    private FragmentActivity mActivity;
+
+    public final FragmentActivity getActivity() {
+        return mActivity;
+    }
+
+    /**
+     * 对应 FragmentManager 把 Fragment 添加到 Activity, 只存在于 benchmark 的实现中
+     */
+    public final void attach(FragmentActivity activity) {
+        mActivity = activity;
+    }
+}
@@ -0,0 +1,12 @@
+package android.support.v4.app;
+
+import android.app.Activity;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public class FragmentActivity extends Activity {
+    public FragmentManager getSupportFragmentManager() {
+        return null;
+    }
+}
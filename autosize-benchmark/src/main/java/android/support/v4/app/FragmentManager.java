@@ -0,0 +1,23 @@
+package android.support.v4.app;
+
+import android.os.Bundle;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public abstract class FragmentManager {
+    public abstract void registerFragmentLifecycleCallbacks(FragmentLifecycleCallbacks cb,
+            boolean recursive);
+
+    public abstract static class FragmentLifecycleCallbacks {
+        public void onFragmentCreated(FragmentManager fm, Fragment f,
+                Bundle savedInstanceState) {
+        }
+
+        public void onFragmentResumed(FragmentManager fm, Fragment f) {
+        }
+
+        public void onFragmentDestroyed(FragmentManager fm, Fragment f) {
+        }
+    }
+}
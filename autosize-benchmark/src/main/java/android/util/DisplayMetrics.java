@@ -0,0 +1,24 @@
+package android.util;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public class DisplayMetrics {
+    public int widthPixels;
+    public int heightPixels;
+    public float density;
+    public int densityDpi;
+    public float scaledDensity;
+    public float xdpi;
+    public float ydpi;
+
+    public void setTo(DisplayMetrics o) {
+        widthPixels = o.widthPixels;
+        heightPixels = o.heightPixels;
+        density = o.density;
+        densityDpi = o.densityDpi;
+        scaledDensity = o.scaledDensity;
+        xdpi = o.xdpi;
+        ydpi = o.ydpi;
+    }
+}
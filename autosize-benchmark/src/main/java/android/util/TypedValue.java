@@ -0,0 +1,32 @@
+package android.util;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public class TypedValue {
+    public static final int COMPLEX_UNIT_PX = 0;
+    public static final int COMPLEX_UNIT_DIP = 1;
+    public static final int COMPLEX_UNIT_SP = 2;
+    public static final int COMPLEX_UNIT_PT = 3;
+    public static final int COMPLEX_UNIT_IN = 4;
+    public static final int COMPLEX_UNIT_MM = 5;
+
+    public static float applyDimension(int unit, float value, DisplayMetrics metrics) {
+        switch (unit) {
+        case COMPLEX_UNIT_PX:
+            return value;
+        case COMPLEX_UNIT_DIP:
+            return value * metrics.density;
+        case COMPLEX_UNIT_SP:
+            return value * metrics.scaledDensity;
+        case COMPLEX_UNIT_PT:
+            return value * metrics.xdpi * (1.0f / 72);
+        case COMPLEX_UNIT_IN:
+            return value * metrics.xdpi;
+        case COMPLEX_UNIT_MM:
+            return value * metrics.xdpi * (1.0f / 25.4f);
+        default:
+            return 0;
+        }
+    }
+}
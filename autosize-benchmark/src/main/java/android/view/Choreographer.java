@@ -0,0 +1,41 @@
+package android.view;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public final class Choreographer {
+    private static final Choreographer sInstance = new Choreographer();
+
+    private Choreographer() {
+    }
+
+    public static Choreographer getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * JVM 上没有 vsync, 直接执行
+     */
+    public void postFrameCallback(FrameCallback callback) {
+        callback.doFrame(System.nanoTime());
+    }
+
+    /**
+     * JVM 上没有消息循环, 在当前线程等待 delayMillis 后执行
+     */
+    public void postFrameCallbackDelayed(FrameCallback callback, long delayMillis) {
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        callback.doFrame(System.nanoTime());
+    }
+
+    public void removeFrameCallback(FrameCallback callback) {
+    }
+
+    public interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+}
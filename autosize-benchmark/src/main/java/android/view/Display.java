@@ -0,0 +1,44 @@
+package android.view;
+
+import android.graphics.Point;
+import android.util.DisplayMetrics;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public final class Display {
+    public static final int DEFAULT_DISPLAY = 0;
+    public static final int FLAG_PRIVATE = 1 << 2;
+
+    private final int mDisplayId;
+    private final DisplayMetrics mMetrics;
+
+    public Display(int displayId, DisplayMetrics metrics) {
+        mDisplayId = displayId;
+        mMetrics = metrics;
+    }
+
+    public int getDisplayId() {
+        return mDisplayId;
+    }
+
+    public int getFlags() {
+        return 0;
+    }
+
+    public void getMetrics(DisplayMetrics outMetrics) {
+        outMetrics.setTo(mMetrics);
+    }
+
+    public void getRealMetrics(DisplayMetrics outMetrics) {
+        outMetrics.setTo(mMetrics);
+    }
+
+    public void getSize(Point outSize) {
+        outSize.set(mMetrics.widthPixels, mMetrics.heightPixels);
+    }
+
+    public void getRealSize(Point outSize) {
+        outSize.set(mMetrics.widthPixels, mMetrics.heightPixels);
+    }
+}
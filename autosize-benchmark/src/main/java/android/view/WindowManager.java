@@ -0,0 +1,8 @@
+package android.view;
+
+/**
+ * 在 JVM 上运行 autosize-benchmark 使用的简化实现, 只包含 AndroidAutoSize 用到的部分
+ */
+public interface WindowManager {
+    Display getDefaultDisplay();
+}
@@ -0,0 +1,12 @@
+package me.jessyan.autosize;
+
+/**
+ * 代替 aapt 生成的 R, 只包含 AndroidAutoSize 用到的资源 id
+ */
+public final class R {
+    public static final class bool {
+        public static final int autosize_preload_manifest = 0x7f010000;
+        public static final int autosize_lazy_init = 0x7f010001;
+        public static final int autosize_log = 0x7f010002;
+    }
+}
@@ -0,0 +1,279 @@
+package me.jessyan.autosize.benchmark;
+
+import java.io.File;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentName;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.hardware.display.DisplayManager;
+import android.os.Bundle;
+import android.util.DisplayMetrics;
+import android.view.Display;
+import android.view.WindowManager;
+
+import me.jessyan.autosize.AutoSize;
+import me.jessyan.autosize.AutoSizeConfig;
+import me.jessyan.autosize.internal.CancelAdapt;
+import me.jessyan.autosize.internal.CustomAdapt;
+
+/**
+ * 在 JVM 上搭建 AndroidAutoSize 的运行环境: 一台 1080x1920、density 为 3 的设备, AndroidManifest 中声明了
+ * design_width_in_dp = 360、design_height_in_dp = 640, 并通过 {@link AutoSize#initInProcess(Context)} 完成初始化
+ * <p>
+ * 同一个进程中只会初始化一次, 之后每次调用 {@link #setUp()} 只是返回同一个环境
+ * @author jiwenjie
+ */
+public final class BenchmarkEnvironment {
+    public static final String PACKAGE_NAME = "me.jessyan.autosize.benchmark";
+    public static final int DESIGN_WIDTH_IN_DP = 360;
+    public static final int DESIGN_HEIGHT_IN_DP = 640;
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 1920;
+    private static final float DENSITY = 3f;
+    /**
+     * 副屏 (如外接显示器) 的参数
+     */
+    public static final int SECONDARY_DISPLAY_ID = 1;
+    private static final int SECONDARY_SCREEN_WIDTH = 1920;
+    private static final int SECONDARY_SCREEN_HEIGHT = 1080;
+    private static final float SECONDARY_DENSITY = 1.5f;
+    private static BenchmarkEnvironment sInstance;
+
+    private final Application mApplication;
+    private final Activity mActivity;
+    private final Activity mSecondaryDisplayActivity;
+
+    private BenchmarkEnvironment() {
+        DisplayMetrics systemMetrics = createDisplayMetrics();
+        Resources.setSystem(new Resources(systemMetrics, createConfiguration()));
+        Display display = new Display(Display.DEFAULT_DISPLAY, systemMetrics);
+        FakeWindowManager windowManager = new FakeWindowManager(display);
+
+        mApplication = new Application();
+        mApplication.attach(new FakeContext(mApplication, windowManager));
+        // Activity 与 Application 各自持有 Resources, 与真机一致
+        mActivity = new BenchmarkActivity(new Resources(createDisplayMetrics(),
+                createConfiguration()));
+        mActivity.attach(mApplication, windowManager);
+        DisplayMetrics secondaryMetrics = createDisplayMetrics(SECONDARY_SCREEN_WIDTH,
+                SECONDARY_SCREEN_HEIGHT, SECONDARY_DENSITY);
+        mSecondaryDisplayActivity = new BenchmarkActivity(new Resources(secondaryMetrics,
+                createConfiguration()));
+        mSecondaryDisplayActivity.attach(mApplication, new FakeWindowManager(
+                new Display(SECONDARY_DISPLAY_ID, createDisplayMetrics(SECONDARY_SCREEN_WIDTH,
+                        SECONDARY_SCREEN_HEIGHT, SECONDARY_DENSITY))));
+
+        if (!AutoSize.initInProcess(mApplication)) {
+            throw new IllegalStateException("AutoSize.initInProcess failed");
+        }
+        AutoSizeConfig.getInstance().setLog(false);
+    }
+
+    /**
+     * @return 初始化完成的环境
+     */
+    public static synchronized BenchmarkEnvironment setUp() {
+        if (sInstance == null) {
+            sInstance = new BenchmarkEnvironment();
+        }
+        return sInstance;
+    }
+
+    public Application getApplication() {
+        return mApplication;
+    }
+
+    public Activity getActivity() {
+        return mActivity;
+    }
+
+    /**
+     * @return 运行在副屏 {@link #SECONDARY_DISPLAY_ID} 上的 {@link Activity}
+     */
+    public Activity getSecondaryDisplayActivity() {
+        return mSecondaryDisplayActivity;
+    }
+
+    private static DisplayMetrics createDisplayMetrics() {
+        return createDisplayMetrics(SCREEN_WIDTH, SCREEN_HEIGHT, DENSITY);
+    }
+
+    private static DisplayMetrics createDisplayMetrics(int width, int height, float density) {
+        DisplayMetrics metrics = new DisplayMetrics();
+        metrics.widthPixels = width;
+        metrics.heightPixels = height;
+        metrics.density = density;
+        metrics.densityDpi = (int) (density * 160);
+        metrics.scaledDensity = density;
+        metrics.xdpi = density * 160;
+        metrics.ydpi = density * 160;
+        return metrics;
+    }
+
+    private static Configuration createConfiguration() {
+        Configuration configuration = new Configuration();
+        configuration.fontScale = 1f;
+        configuration.orientation = Configuration.ORIENTATION_PORTRAIT;
+        configuration.screenWidthDp = (int) (SCREEN_WIDTH / DENSITY);
+        configuration.screenHeightDp = (int) (SCREEN_HEIGHT / DENSITY);
+        configuration.densityDpi = (int) (DENSITY * 160);
+        return configuration;
+    }
+
+    /**
+     * 使用全局参数适配的 target
+     */
+    public static class GlobalTarget {
+    }
+
+    /**
+     * 实现了 {@link CustomAdapt} 的 target
+     */
+    public static class CustomTarget implements CustomAdapt {
+        @Override
+        public boolean isBaseOnWidth() {
+            return false;
+        }
+
+        @Override
+        public float getSizeInDp() {
+            return DESIGN_HEIGHT_IN_DP;
+        }
+    }
+
+    /**
+     * 实现了 {@link CancelAdapt} 的 target
+     */
+    public static class CancelTarget implements CancelAdapt {
+    }
+
+    private static final class BenchmarkActivity extends Activity {
+        private final Resources mResources;
+
+        BenchmarkActivity(Resources resources) {
+            mResources = resources;
+        }
+
+        @Override
+        public Resources getResources() {
+            return mResources;
+        }
+    }
+
+    private static final class FakeWindowManager implements WindowManager {
+        private final Display mDisplay;
+
+        FakeWindowManager(Display display) {
+            mDisplay = display;
+        }
+
+        @Override
+        public Display getDefaultDisplay() {
+            return mDisplay;
+        }
+    }
+
+    /**
+     * {@link Application} 的 base context
+     */
+    private static final class FakeContext extends Context {
+        private final Application mApplication;
+        private final WindowManager mWindowManager;
+        private final DisplayManager mDisplayManager = new DisplayManager();
+        private final ContentResolver mContentResolver = new ContentResolver();
+        private final Resources mResources = new Resources(createDisplayMetrics(),
+                createConfiguration());
+        private final PackageManager mPackageManager = new FakePackageManager();
+
+        FakeContext(Application application, WindowManager windowManager) {
+            mApplication = application;
+            mWindowManager = windowManager;
+        }
+
+        @Override
+        public Object getSystemService(String name) {
+            if (WINDOW_SERVICE.equals(name)) {
+                return mWindowManager;
+            }
+            if (DISPLAY_SERVICE.equals(name)) {
+                return mDisplayManager;
+            }
+            return null;
+        }
+
+        @Override
+        public Resources getResources() {
+            return mResources;
+        }
+
+        @Override
+        public Context getApplicationContext() {
+            return mApplication;
+        }
+
+        @Override
+        public PackageManager getPackageManager() {
+            return mPackageManager;
+        }
+
+        @Override
+        public String getPackageName() {
+            return PACKAGE_NAME;
+        }
+
+        @Override
+        public ContentResolver getContentResolver() {
+            return mContentResolver;
+        }
+
+        @Override
+        public File getFilesDir() {
+            return new File(System.getProperty("java.io.tmpdir"), PACKAGE_NAME + "/files");
+        }
+    }
+
+    /**
+     * 只有 Application 声明了 metadata, Activity 没有 metadata
+     */
+    private static final class FakePackageManager extends PackageManager {
+        private final ApplicationInfo mApplicationInfo = new ApplicationInfo();
+
+        FakePackageManager() {
+            mApplicationInfo.packageName = PACKAGE_NAME;
+            mApplicationInfo.metaData = new Bundle();
+            mApplicationInfo.metaData.putInt("design_width_in_dp", DESIGN_WIDTH_IN_DP);
+            mApplicationInfo.metaData.putInt("design_height_in_dp", DESIGN_HEIGHT_IN_DP);
+        }
+
+        @Override
+        public PackageInfo getPackageInfo(String packageName, int flags) {
+            PackageInfo info = new PackageInfo();
+            info.packageName = packageName;
+            info.applicationInfo = mApplicationInfo;
+            info.activities = new ActivityInfo[0];
+            return info;
+        }
+
+        @Override
+        public ApplicationInfo getApplicationInfo(String packageName, int flags) {
+            return mApplicationInfo;
+        }
+
+        @Override
+        public ActivityInfo getActivityInfo(ComponentName component, int flags) {
+            ActivityInfo info = new ActivityInfo();
+            info.name = component.getClassName();
+            info.packageName = component.getPackageName();
+            info.applicationInfo = mApplicationInfo;
+            return info;
+        }
+    }
+}
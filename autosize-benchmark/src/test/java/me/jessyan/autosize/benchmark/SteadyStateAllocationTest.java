@@ -0,0 +1,228 @@
+package me.jessyan.autosize.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import android.app.Activity;
+import android.content.res.Resources;
+
+import me.jessyan.autosize.AdaptMetrics;
+import me.jessyan.autosize.AutoAdaptStrategy;
+import me.jessyan.autosize.AutoSize;
+import me.jessyan.autosize.AutoSizeCompat;
+import me.jessyan.autosize.AutoSizeConfig;
+import me.jessyan.autosize.DefaultAutoAdaptStrategy;
+import me.jessyan.autosize.WrapperAutoAdaptStrategy;
+
+/**
+ * 稳定状态下 (适配方式已经解析、{@link me.jessyan.autosize.DisplayMetricsInfoCache} 命中、日志关闭)
+ * 每次适配都不能产生任何对象分配, 通过 {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}
+ * 统计当前线程分配的字节数
+ * @author jiwenjie
+ */
+public class SteadyStateAllocationTest {
+    private static final int WARM_UP_COUNT = 20000;
+    private static final int MEASURE_COUNT = 10000;
+    private static final int MEASURE_ROUNDS = 3;
+    /**
+     * 一轮测量 ({@link #MEASURE_COUNT} 次调用) 总共允许分配的字节数, 与各轮中的最小值比较, 只能发现每一轮都会出现的分配
+     * (每次调用或者每隔若干次调用就分配一次); 只在个别轮次中出现的分配与 JIT 反优化无法区分, 不会被发现
+     */
+    private static final long ALLOCATION_BUDGET_BYTES = 0;
+
+    private static com.sun.management.ThreadMXBean sThreadMXBean;
+    private static Activity sActivity;
+
+    @BeforeClass
+    public static void setUpClass() {
+        sThreadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        sThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+        sActivity = BenchmarkEnvironment.setUp().getActivity();
+        AutoSizeConfig.getInstance().setLog(false);
+    }
+
+    @Test
+    public void applyAdaptOfGlobal() {
+        assertNoAllocation("applyAdapt(global)",
+                new ApplyAdapt(new BenchmarkEnvironment.GlobalTarget()));
+    }
+
+    @Test
+    public void applyAdaptOfCustomAdapt() {
+        assertNoAllocation("applyAdapt(customAdapt)",
+                new ApplyAdapt(new BenchmarkEnvironment.CustomTarget()));
+    }
+
+    @Test
+    public void applyAdaptOfCancelAdapt() {
+        assertNoAllocation("applyAdapt(cancelAdapt)",
+                new ApplyAdapt(new BenchmarkEnvironment.CancelTarget()));
+    }
+
+    /**
+     * 开启 {@link AdaptMetrics} 后, 记录耗时与计数也不能产生对象分配
+     */
+    @Test
+    public void applyAdaptWithMetrics() {
+        AdaptMetrics metrics = AutoSizeConfig.getInstance().getAdaptMetrics();
+        metrics.setEnabled(true);
+        try {
+            assertNoAllocation("applyAdapt(global) with metrics",
+                    new ApplyAdapt(new BenchmarkEnvironment.GlobalTarget()));
+        } finally {
+            metrics.setEnabled(false);
+        }
+        assertEquals(1, metrics.getAllClassMetrics().size());
+    }
+
+    @Test
+    public void autoConvertDensityOfGlobal() {
+        assertNoAllocation("AutoSize.autoConvertDensityOfGlobal", new Runnable() {
+            @Override
+            public void run() {
+                AutoSize.autoConvertDensityOfGlobal(sActivity);
+            }
+        });
+    }
+
+    @Test
+    public void autoConvertDensityOfGlobalCompat() {
+        final Resources resources = sActivity.getResources();
+        assertNoAllocation("AutoSizeCompat.autoConvertDensityOfGlobal", new Runnable() {
+            @Override
+            public void run() {
+                AutoSizeCompat.autoConvertDensityOfGlobal(resources);
+            }
+        });
+    }
+
+    /**
+     * 开启 {@link AutoSizeConfig#setUseWindowBounds(boolean)} 后, 全屏时的适配也不能产生对象分配
+     */
+    @Test
+    public void autoConvertDensityWithWindowBounds() {
+        AutoSizeConfig config = AutoSizeConfig.getInstance();
+        config.setUseWindowBounds(true);
+        try {
+            assertNoAllocation("AutoSize.autoConvertDensityOfGlobal with window bounds",
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            AutoSize.autoConvertDensityOfGlobal(sActivity);
+                        }
+                    });
+        } finally {
+            config.setUseWindowBounds(false);
+        }
+    }
+
+    /**
+     * 副屏上的适配与取消适配, 使用副屏自己的 {@link me.jessyan.autosize.DisplayMetricsInfoCache}, 不修改
+     * {@link android.app.Application} 的 {@link android.util.DisplayMetrics}
+     */
+    @Test
+    public void adaptThenCancelOnSecondaryDisplay() {
+        final Activity activity = BenchmarkEnvironment.setUp().getSecondaryDisplayActivity();
+        final Resources appResources = AutoSizeConfig.getInstance().getApplication()
+                .getResources();
+        float appDensity = appResources.getDisplayMetrics().density;
+        assertNoAllocation("autoConvertDensity + cancelAdapt on secondary display",
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        AutoSize.autoConvertDensity(activity,
+                                BenchmarkEnvironment.DESIGN_WIDTH_IN_DP, true);
+                        AutoSize.cancelAdapt(activity);
+                    }
+                });
+        AutoSize.autoConvertDensity(activity, BenchmarkEnvironment.DESIGN_WIDTH_IN_DP, true);
+        assertEquals(1920f / BenchmarkEnvironment.DESIGN_WIDTH_IN_DP,
+                activity.getResources().getDisplayMetrics().density, 0.001f);
+        assertEquals(appDensity, appResources.getDisplayMetrics().density, 0);
+    }
+
+    /**
+     * 适配与取消适配交替进行, 保证每次都真正写入 {@link android.util.DisplayMetrics}
+     */
+    @Test
+    public void adaptThenCancel() {
+        assertNoAllocation("autoConvertDensity + cancelAdapt", new Runnable() {
+            @Override
+            public void run() {
+                AutoSize.autoConvertDensity(sActivity, BenchmarkEnvironment.DESIGN_WIDTH_IN_DP,
+                        true);
+                AutoSize.cancelAdapt(sActivity);
+            }
+        });
+    }
+
+    /**
+     * onResume 时重新应用快照, 两个 target 的 density 不同, 保证每次都真正写入 {@link android.util.DisplayMetrics}
+     */
+    @Test
+    public void restoreAdapt() {
+        final Object globalTarget = new BenchmarkEnvironment.GlobalTarget();
+        final Object wideTarget = new Object();
+        new ApplyAdapt(globalTarget).run();
+        new WrapperAutoAdaptStrategy(new AutoAdaptStrategy() {
+            @Override
+            public void applyAdapt(Object target, Activity activity) {
+                AutoSize.autoConvertDensityBaseOnWidth(activity, 400);
+            }
+        }).applyAdapt(wideTarget, sActivity);
+        assertNoAllocation("AutoSize.restoreAdapt", new Runnable() {
+            @Override
+            public void run() {
+                AutoSize.restoreAdapt(globalTarget, sActivity);
+                AutoSize.restoreAdapt(wideTarget, sActivity);
+            }
+        });
+        AutoSize.restoreAdapt(globalTarget, sActivity);
+        assertEquals(3f, sActivity.getResources().getDisplayMetrics().density, 0);
+    }
+
+    private static void assertNoAllocation(String name, Runnable action) {
+        runLoop(action, WARM_UP_COUNT);
+        long threadId = Thread.currentThread().getId();
+        // getThreadAllocatedBytes 自身可能产生的分配, 需要扣除
+        long start = sThreadMXBean.getThreadAllocatedBytes(threadId);
+        long overhead = sThreadMXBean.getThreadAllocatedBytes(threadId) - start;
+        // JIT 反优化时会重新创建被标量替换的对象, 任何一轮都可能出现, 所以取各轮的最小值
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURE_ROUNDS; round++) {
+            start = sThreadMXBean.getThreadAllocatedBytes(threadId);
+            runLoop(action, MEASURE_COUNT);
+            long roundAllocated = sThreadMXBean.getThreadAllocatedBytes(threadId) - start
+                    - overhead;
+            allocated = Math.min(allocated, roundAllocated);
+        }
+        assertTrue(name + " allocated " + allocated + " bytes in " + MEASURE_COUNT + " calls",
+                allocated <= ALLOCATION_BUDGET_BYTES);
+    }
+
+    private static void runLoop(Runnable action, int count) {
+        for (int i = 0; i < count; i++) {
+            action.run();
+        }
+    }
+
+    private static final class ApplyAdapt implements Runnable {
+        private final AutoAdaptStrategy mStrategy = new WrapperAutoAdaptStrategy(
+                new DefaultAutoAdaptStrategy());
+        private final Object mTarget;
+
+        ApplyAdapt(Object target) {
+            mTarget = target;
+        }
+
+        @Override
+        public void run() {
+            mStrategy.applyAdapt(mTarget, sActivity);
+        }
+    }
+}
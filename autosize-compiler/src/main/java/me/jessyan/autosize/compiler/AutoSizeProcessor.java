@@ -0,0 +1,221 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize.compiler;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import me.jessyan.autosize.annotation.AutoSizeCancel;
+import me.jessyan.autosize.annotation.AutoSizeDesign;
+
+/**
+ * 根据 {@link AutoSizeDesign}、{@link AutoSizeCancel} 注解生成 me.jessyan.autosize.external.AdaptRegistry 的实现类,
+ * 生成的类通过 String switch 按类名查询, 运行时不需要 instanceof 检查, 也不需要在启动时逐个注册
+ * <p>
+ * 默认生成 {@link #DEFAULT_REGISTRY_CLASS}, 由 AndroidAutoSize 自动加载; 在多个模块中使用时, 非应用模块需要通过
+ * {@link #OPTION_REGISTRY_CLASS} 参数指定不同的类名, 并手动调用 ExternalAdaptManager#addAdaptRegistry 注册
+ * @author jiwenjie
+ */
+public class AutoSizeProcessor extends AbstractProcessor {
+    static final String OPTION_REGISTRY_CLASS = "autosize.registryClass";
+    static final String DEFAULT_REGISTRY_CLASS =
+            "me.jessyan.autosize.generated.AutoSizeAdaptRegistry";
+    private static final String ADAPT_REGISTRY = "me.jessyan.autosize.external.AdaptRegistry";
+    private static final String EXTERNAL_ADAPT_INFO =
+            "me.jessyan.autosize.external.ExternalAdaptInfo";
+
+    private Elements mElements;
+    private Messager mMessager;
+    private boolean isGenerated;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        mElements = processingEnv.getElementUtils();
+        mMessager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> types = new LinkedHashSet<>();
+        types.add(AutoSizeDesign.class.getCanonicalName());
+        types.add(AutoSizeCancel.class.getCanonicalName());
+        return types;
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Collections.singleton(OPTION_REGISTRY_CLASS);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (annotations.isEmpty()) {
+            return false;
+        }
+        List<TypeElement> cancelTypes = new ArrayList<>();
+        List<TypeElement> designTypes = new ArrayList<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(AutoSizeCancel.class)) {
+            if (checkType(element, AutoSizeCancel.class)) {
+                cancelTypes.add((TypeElement) element);
+            }
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(AutoSizeDesign.class)) {
+            if (!checkType(element, AutoSizeDesign.class)) {
+                continue;
+            }
+            if (element.getAnnotation(AutoSizeCancel.class) != null) {
+                error(element, "@AutoSizeDesign and @AutoSizeCancel can't be used together");
+                continue;
+            }
+            float sizeInDp = element.getAnnotation(AutoSizeDesign.class).sizeInDp();
+            if (sizeInDp < 0 || Float.isNaN(sizeInDp) || Float.isInfinite(sizeInDp)) {
+                error(element, "@AutoSizeDesign sizeInDp must be >= 0");
+                continue;
+            }
+            designTypes.add((TypeElement) element);
+        }
+        if (cancelTypes.isEmpty() && designTypes.isEmpty()) {
+            return true;
+        }
+        if (isGenerated) {
+            // 查询表已经在之前的轮次中生成, 其他注解处理器生成的类上的注解无法再加入
+            for (TypeElement type : cancelTypes) {
+                error(type, "AutoSize annotations on generated sources are not supported");
+            }
+            for (TypeElement type : designTypes) {
+                error(type, "AutoSize annotations on generated sources are not supported");
+            }
+            return true;
+        }
+        isGenerated = true;
+        generate(cancelTypes, designTypes);
+        return true;
+    }
+
+    private boolean checkType(Element element, Class<?> annotation) {
+        if (element.getKind() != ElementKind.CLASS) {
+            error(element, "@" + annotation.getSimpleName() + " can only be used on classes");
+            return false;
+        }
+        return true;
+    }
+
+    private void generate(List<TypeElement> cancelTypes, List<TypeElement> designTypes) {
+        String registryClass = processingEnv.getOptions().get(OPTION_REGISTRY_CLASS);
+        if (registryClass == null || registryClass.isEmpty()) {
+            registryClass = DEFAULT_REGISTRY_CLASS;
+        }
+        int lastDot = registryClass.lastIndexOf('.');
+        String packageName = lastDot > 0 ? registryClass.substring(0, lastDot) : null;
+        String simpleName = registryClass.substring(lastDot + 1);
+
+        List<Element> originatingElements = new ArrayList<Element>(cancelTypes);
+        originatingElements.addAll(designTypes);
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(registryClass,
+                    originatingElements.toArray(new Element[originatingElements.size()]));
+            PrintWriter writer = new PrintWriter(file.openWriter());
+            try {
+                writeRegistry(writer, packageName, simpleName, cancelTypes, designTypes);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            mMessager.printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to generate " + registryClass + ": " + e.getMessage());
+        }
+    }
+
+    private void writeRegistry(PrintWriter w, String packageName, String simpleName,
+            List<TypeElement> cancelTypes, List<TypeElement> designTypes) {
+        w.println("// Generated by autosize-compiler. Do not modify!");
+        if (packageName != null) {
+            w.println("package " + packageName + ";");
+            w.println();
+        }
+        w.println("public final class " + simpleName + " implements " + ADAPT_REGISTRY + " {");
+        w.println("    private final " + EXTERNAL_ADAPT_INFO + "[] mInfos = {");
+        for (TypeElement type : designTypes) {
+            AutoSizeDesign design = type.getAnnotation(AutoSizeDesign.class);
+            w.println("            new " + EXTERNAL_ADAPT_INFO + "(" + design.baseOnWidth() + ", "
+                    + design.sizeInDp() + "f),");
+        }
+        w.println("    };");
+        w.println();
+
+        w.println("    @Override");
+        w.println("    public boolean isCancelAdapt(String className) {");
+        w.println("        switch (className) {");
+        for (TypeElement type : cancelTypes) {
+            w.println("        case \"" + binaryName(type) + "\":");
+        }
+        if (!cancelTypes.isEmpty()) {
+            w.println("            return true;");
+        }
+        w.println("        default:");
+        w.println("            return false;");
+        w.println("        }");
+        w.println("    }");
+        w.println();
+
+        w.println("    @Override");
+        w.println("    public " + EXTERNAL_ADAPT_INFO + " getExternalAdaptInfo(String className) {");
+        w.println("        switch (className) {");
+        for (int i = 0; i < designTypes.size(); i++) {
+            w.println("        case \"" + binaryName(designTypes.get(i)) + "\":");
+            w.println("            return mInfos[" + i + "];");
+        }
+        w.println("        default:");
+        w.println("            return null;");
+        w.println("        }");
+        w.println("    }");
+        w.println("}");
+    }
+
+    /**
+     * @return 与运行时 {@link Class#getName()} 一致的类名, 内部类使用 {@code $} 分隔
+     */
+    private String binaryName(TypeElement type) {
+        return mElements.getBinaryName(type).toString();
+    }
+
+    private void error(Element element, String message) {
+        mMessager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,168 @@
+package me.jessyan.autosize.compiler;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaFileObject;
+
+import org.junit.Test;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+
+/**
+ * 在内存中运行 {@link AutoSizeProcessor}, 检查生成的 String switch 查询表以及不支持的用法是否报错
+ * <p>
+ * 生成的类依赖 autosize 中的 AdaptRegistry、ExternalAdaptInfo 以及 Activity、Fragment, 它们都在 Android 库中,
+ * 这里以最简单的源码代替
+ * @author jiwenjie
+ */
+public class AutoSizeProcessorTest {
+    private static final String EXTERNAL_ADAPT_INFO_CLASS =
+            "me.jessyan.autosize.external.ExternalAdaptInfo";
+    private static final JavaFileObject ADAPT_REGISTRY = JavaFileObjects.forSourceLines(
+            "me.jessyan.autosize.external.AdaptRegistry",
+            "package me.jessyan.autosize.external;",
+            "public interface AdaptRegistry {",
+            "    boolean isCancelAdapt(String className);",
+            "    ExternalAdaptInfo getExternalAdaptInfo(String className);",
+            "}");
+    private static final JavaFileObject EXTERNAL_ADAPT_INFO = JavaFileObjects.forSourceLines(
+            EXTERNAL_ADAPT_INFO_CLASS,
+            "package me.jessyan.autosize.external;",
+            "public class ExternalAdaptInfo {",
+            "    public ExternalAdaptInfo(boolean isBaseOnWidth, float sizeInDp) {",
+            "    }",
+            "}");
+    private static final JavaFileObject ACTIVITY = JavaFileObjects.forSourceLines(
+            "android.app.Activity",
+            "package android.app;",
+            "public class Activity {",
+            "}");
+    private static final JavaFileObject FRAGMENT = JavaFileObjects.forSourceLines(
+            "android.support.v4.app.Fragment",
+            "package android.support.v4.app;",
+            "public class Fragment {",
+            "}");
+
+    @Test
+    public void generateSwitchOverActivitiesAndFragments() {
+        JavaFileObject source = JavaFileObjects.forSourceLines("test.MainActivity",
+                "package test;",
+                "import android.app.Activity;",
+                "import android.support.v4.app.Fragment;",
+                "import me.jessyan.autosize.annotation.AutoSizeCancel;",
+                "import me.jessyan.autosize.annotation.AutoSizeDesign;",
+                "@AutoSizeDesign(sizeInDp = 667, baseOnWidth = false)",
+                "public class MainActivity extends Activity {",
+                "    @AutoSizeDesign(sizeInDp = 375)",
+                "    public static class HomeFragment extends Fragment {",
+                "    }",
+                "    @AutoSizeCancel",
+                "    public static class PlayerFragment extends Fragment {",
+                "    }",
+                "}");
+        Compilation compilation = compile(source, new AutoSizeProcessor());
+        assertThat(compilation).succeeded();
+        String registry = AutoSizeProcessor.DEFAULT_REGISTRY_CLASS;
+        assertThat(compilation).generatedSourceFile(registry).contentsAsUtf8String()
+                .contains(lines(
+                        "            new " + EXTERNAL_ADAPT_INFO_CLASS + "(false, 667.0f),",
+                        "            new " + EXTERNAL_ADAPT_INFO_CLASS + "(true, 375.0f),"));
+        assertThat(compilation).generatedSourceFile(registry).contentsAsUtf8String()
+                .contains(lines(
+                        "        case \"test.MainActivity$PlayerFragment\":",
+                        "            return true;"));
+        assertThat(compilation).generatedSourceFile(registry).contentsAsUtf8String()
+                .contains(lines(
+                        "        case \"test.MainActivity\":",
+                        "            return mInfos[0];",
+                        "        case \"test.MainActivity$HomeFragment\":",
+                        "            return mInfos[1];"));
+    }
+
+    @Test
+    public void errorOnAnnotationsAddedInLaterRound() {
+        JavaFileObject source = JavaFileObjects.forSourceLines("test.MainActivity",
+                "package test;",
+                "import me.jessyan.autosize.annotation.AutoSizeCancel;",
+                "@AutoSizeCancel",
+                "public class MainActivity extends android.app.Activity {",
+                "}");
+        Compilation compilation = compile(source, new AutoSizeProcessor(),
+                new GeneratingProcessor());
+        assertThat(compilation).failed();
+        assertThat(compilation)
+                .hadErrorContaining("AutoSize annotations on generated sources are not supported");
+    }
+
+    private static Compilation compile(JavaFileObject source, Processor... processors) {
+        return javac().withProcessors(processors)
+                .compile(source, ADAPT_REGISTRY, EXTERNAL_ADAPT_INFO, ACTIVITY, FRAGMENT);
+    }
+
+    /**
+     * 生成的源码由 {@link java.io.PrintWriter#println()} 写入, 换行符与平台一致
+     */
+    private static String lines(String... lines) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines.length; i++) {
+            if (i > 0) {
+                builder.append(System.lineSeparator());
+            }
+            builder.append(lines[i]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 模拟其他注解处理器, 在第一轮生成带有 {@code @AutoSizeCancel} 的类, 该类要到第二轮才会被处理
+     */
+    private static class GeneratingProcessor extends AbstractProcessor {
+        private boolean isGenerated;
+
+        @Override
+        public Set<String> getSupportedAnnotationTypes() {
+            return Collections.singleton("*");
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latestSupported();
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations,
+                RoundEnvironment roundEnv) {
+            if (isGenerated) {
+                return false;
+            }
+            isGenerated = true;
+            try {
+                Writer writer = processingEnv.getFiler()
+                        .createSourceFile("test.GeneratedActivity").openWriter();
+                try {
+                    writer.write("package test;\n"
+                            + "@me.jessyan.autosize.annotation.AutoSizeCancel\n"
+                            + "public class GeneratedActivity extends android.app.Activity {\n"
+                            + "}\n");
+                } finally {
+                    writer.close();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return false;
+        }
+    }
+}
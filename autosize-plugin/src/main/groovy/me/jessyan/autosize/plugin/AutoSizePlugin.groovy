@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize.plugin
+
+import org.gradle.api.Plugin
+import org.gradle.api.Project
+
+/**
+ * 在编译期读取合并后的 AndroidManifest (包含所有依赖的 AAR), 将 AndroidAutoSize 相关的 metadata 生成为
+ * me.jessyan.autosize.generated.AutoSizeManifest, AndroidAutoSize 运行时优先使用生成的类, 不再查询 PackageManager
+ * <p>
+ * 在应用模块中使用:
+ * <pre>
+ * apply plugin: 'com.android.application'
+ * apply plugin: 'me.jessyan.autosize'
+ * </pre>
+ * @author jiwenjie
+ */
+class AutoSizePlugin implements Plugin<Project> {
+    @Override
+    void apply(Project project) {
+        project.plugins.withId('com.android.application') {
+            project.android.applicationVariants.all { variant ->
+                // 各个 split 的 AndroidManifest 中 Application、Activity 的 metadata 都是相同的, 取第一个即可
+                def processManifest = variant.outputs.first().processManifestProvider
+                def outputDir = project.file(
+                        "${project.buildDir}/generated/source/autosize/${variant.dirName}")
+                def task = project.tasks.create(
+                        "generate${variant.name.capitalize()}AutoSizeManifest",
+                        GenerateAutoSizeManifestTask)
+                task.manifestFile.set(processManifest.flatMap {
+                    it.manifestOutputDirectory.file('AndroidManifest.xml')
+                })
+                task.outputDir = outputDir
+                variant.registerJavaGeneratingTask(task, outputDir)
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize.plugin
+
+import org.gradle.api.DefaultTask
+import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.tasks.InputFile
+import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.api.tasks.TaskAction
+
+/**
+ * 根据合并后的 AndroidManifest 生成 me.jessyan.autosize.generated.AutoSizeManifest
+ * @author jiwenjie
+ */
+class GenerateAutoSizeManifestTask extends DefaultTask {
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    final RegularFileProperty manifestFile = project.objects.fileProperty()
+
+    @OutputDirectory
+    File outputDir
+
+    @TaskAction
+    void generate() {
+        project.delete(outputDir)
+        ManifestCodeGenerator generator = new ManifestCodeGenerator()
+        String source = generator.generate(manifestFile.get().asFile)
+        if (source == null) {
+            // 存在无法在编译期确定的值 (如资源引用), 运行时继续查询 PackageManager
+            logger.warn("autosize: ${generator.skipReason}, skip generating " +
+                    "${ManifestCodeGenerator.CLASS_NAME}")
+            return
+        }
+        File file = new File(outputDir,
+                ManifestCodeGenerator.CLASS_NAME.replace('.', File.separator) + '.java')
+        file.parentFile.mkdirs()
+        file.setText(source, 'UTF-8')
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize.plugin
+
+import javax.xml.parsers.DocumentBuilderFactory
+
+import org.w3c.dom.Element
+import org.w3c.dom.Node
+
+/**
+ * 解析合并后的 AndroidManifest, 生成实现 me.jessyan.autosize.utils.GeneratedManifest 的 Java 源码
+ * <p>
+ * 值的类型与 aapt 编译后 PackageManager 返回的 Bundle 保持一致: true/false 为 Boolean, 整数、十六进制数、颜色为
+ * Integer, 小数为 Float, 其余为 String; 引用资源的值 (@、?) 无法在编译期确定, 遇到时不生成任何代码
+ * @author jiwenjie
+ */
+class ManifestCodeGenerator {
+    static final String CLASS_NAME = 'me.jessyan.autosize.generated.AutoSizeManifest'
+    static final List<String> KEYS = ['autosize_intrinsic', 'windowParams', 'design_width_in_dp',
+                                      'design_height_in_dp']
+    private static final String ANDROID_NS = 'http://schemas.android.com/apk/res/android'
+
+    /**
+     * 不生成代码的原因
+     */
+    String skipReason
+
+    /**
+     * @param manifest 合并后的 AndroidManifest
+     * @return 生成的源码, 存在无法在编译期确定的值时返回 {@code null}
+     */
+    String generate(File manifest) {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance()
+        factory.namespaceAware = true
+        Element root = factory.newDocumentBuilder().parse(manifest).documentElement
+        String packageName = root.getAttribute('package')
+        List<Element> applications = children(root, 'application')
+        if (applications.isEmpty()) {
+            skipReason = 'no <application> in manifest'
+            return null
+        }
+        Element application = applications[0]
+
+        List<Object> appMetaData = readMetaData(application, 'application')
+        if (appMetaData == null) {
+            return null
+        }
+        List<String> activityNames = []
+        List<List<Object>> activityMetaData = []
+        for (Element activity : children(application, 'activity')) {
+            String name = activity.getAttributeNS(ANDROID_NS, 'name')
+            if (name.startsWith('.')) {
+                name = packageName + name
+            } else if (!name.contains('.')) {
+                name = packageName + '.' + name
+            }
+            List<Object> values = readMetaData(activity, name)
+            if (values == null) {
+                return null
+            }
+            activityNames << name
+            activityMetaData << (values.isEmpty() ? null : values)
+        }
+        return write(appMetaData, activityNames, activityMetaData)
+    }
+
+    /**
+     * @return key、value 交替排列的 metadata, 只包含 {@link #KEYS}, 存在引用资源的值时返回 {@code null}
+     */
+    private List<Object> readMetaData(Element component, String componentName) {
+        List<Object> keyValues = []
+        for (Element metaData : children(component, 'meta-data')) {
+            String key = metaData.getAttributeNS(ANDROID_NS, 'name')
+            if (!KEYS.contains(key)) {
+                continue
+            }
+            if (!metaData.hasAttributeNS(ANDROID_NS, 'value')) {
+                skipReason = "$key of $componentName is not a literal android:value"
+                return null
+            }
+            String value = metaData.getAttributeNS(ANDROID_NS, 'value')
+            if (value.startsWith('@') || value.startsWith('?')) {
+                skipReason = "$key of $componentName is not a literal android:value"
+                return null
+            }
+            keyValues << key
+            keyValues << parseValue(value)
+        }
+        return keyValues
+    }
+
+    private static List<Element> children(Element parent, String tagName) {
+        List<Element> result = []
+        for (Node node = parent.firstChild; node != null; node = node.nextSibling) {
+            if (node instanceof Element && tagName == ((Element) node).tagName) {
+                result << (Element) node
+            }
+        }
+        return result
+    }
+
+    private static Object parseValue(String value) {
+        String trimmed = value.trim()
+        if (trimmed == 'true' || trimmed == 'false') {
+            return Boolean.valueOf(trimmed)
+        }
+        if (trimmed ==~ /-?\d+/) {
+            long number = Long.parseLong(trimmed)
+            if (number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+                return (int) number
+            }
+            return value
+        }
+        if (trimmed ==~ /0[xX][0-9a-fA-F]{1,8}/) {
+            return (int) Long.parseLong(trimmed.substring(2), 16)
+        }
+        if (trimmed ==~ /#([0-9a-fA-F]{3}|[0-9a-fA-F]{4}|[0-9a-fA-F]{6}|[0-9a-fA-F]{8})/) {
+            return parseColor(trimmed.substring(1))
+        }
+        if (trimmed ==~ /-?(\d+\.\d*|\.\d+|\d+)([eE][-+]?\d+)?/) {
+            return Float.parseFloat(trimmed)
+        }
+        return value
+    }
+
+    private static int parseColor(String hex) {
+        if (hex.length() <= 4) {
+            // #RGB、#ARGB 每一位重复一次
+            StringBuilder sb = new StringBuilder()
+            for (char c : hex.toCharArray()) {
+                sb.append(c).append(c)
+            }
+            hex = sb.toString()
+        }
+        long color = Long.parseLong(hex, 16)
+        if (hex.length() == 6) {
+            color |= 0xFF000000L
+        }
+        return (int) color
+    }
+
+    private static String write(List<Object> appMetaData, List<String> activityNames,
+                                List<List<Object>> activityMetaData) {
+        int lastDot = CLASS_NAME.lastIndexOf('.')
+        StringBuilder sb = new StringBuilder()
+        sb << '// Generated by autosize-plugin. Do not modify!\n'
+        sb << "package ${CLASS_NAME.substring(0, lastDot)};\n\n"
+        sb << "public final class ${CLASS_NAME.substring(lastDot + 1)}"
+        sb << ' implements me.jessyan.autosize.utils.GeneratedManifest {\n'
+        for (int i = 0; i < appMetaData.size(); i += 2) {
+            Object value = appMetaData[i + 1]
+            String type = javaType(value)
+            if (type != null) {
+                String name = ((String) appMetaData[i]).replaceAll(/([a-z])([A-Z])/, '$1_$2')
+                        .toUpperCase(Locale.ENGLISH)
+                sb << "    public static final $type $name"
+                sb << " = ${literal(value)};\n"
+            }
+        }
+        sb << '\n'
+        sb << '    @Override\n'
+        sb << '    public Object[] appMetaData() {\n'
+        sb << "        return new Object[] {${literals(appMetaData)}};\n"
+        sb << '    }\n\n'
+        sb << '    @Override\n'
+        sb << '    public String[] activityNames() {\n'
+        sb << '        return new String[] {\n'
+        for (String name : activityNames) {
+            sb << "                ${literal(name)},\n"
+        }
+        sb << '        };\n'
+        sb << '    }\n\n'
+        sb << '    @Override\n'
+        sb << '    public Object[][] activityMetaData() {\n'
+        sb << '        return new Object[][] {\n'
+        for (List<Object> values : activityMetaData) {
+            sb << (values == null ? '                null,\n'
+                    : "                {${literals(values)}},\n")
+        }
+        sb << '        };\n'
+        sb << '    }\n'
+        sb << '}\n'
+        return sb.toString()
+    }
+
+    private static String javaType(Object value) {
+        if (value instanceof Boolean) {
+            return 'boolean'
+        }
+        if (value instanceof Integer) {
+            return 'int'
+        }
+        if (value instanceof Float) {
+            return 'float'
+        }
+        return value instanceof String ? 'String' : null
+    }
+
+    private static String literals(List<Object> values) {
+        return values.collect { literal(it) }.join(', ')
+    }
+
+    private static String literal(Object value) {
+        if (value instanceof String) {
+            StringBuilder sb = new StringBuilder('"')
+            for (char c : value.toCharArray()) {
+                if (c == '"' as char || c == '\\' as char) {
+                    sb.append('\\').append(c)
+                } else if (c < (' ' as char)) {
+                    // 控制字符不能使用 unicode 转义, 否则换行符会在 Java 编译的第一步被还原
+                    sb.append(String.format('\\%03o', (int) c))
+                } else if (c > ('~' as char)) {
+                    sb.append(String.format('\\u%04x', (int) c))
+                } else {
+                    sb.append(c)
+                }
+            }
+            return sb.append('"').toString()
+        }
+        if (value instanceof Float) {
+            return "${value}f"
+        }
+        return String.valueOf(value)
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize.tools;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 解析 me.jessyan.autosize.AdaptJournal 导出的二进制文件, 格式见 AdaptJournal 的注释:
+ * <pre>
+ * adb shell dumpsys activity provider me.jessyan.autosize.InitProvider journal export
+ * adb exec-out run-as {包名} cat files/autosize/adapt-journal-xxx.bin &gt; journal.bin
+ * java -jar autosize-tools.jar journal.bin
+ * </pre>
+ * 这个模块运行在电脑上, 不依赖 AndroidAutoSize, 格式相关的常量与 AdaptJournal 保持一致
+ * @author jiwenjie
+ */
+public class AdaptJournalReader {
+    static final int MAGIC = 0x41534A4E;
+    static final int VERSION = 1;
+    static final int FLAG_BASE_ON_WIDTH = 1;
+    static final int FLAG_CACHE_HIT = 1 << 1;
+    static final int FLAG_CANCEL = 1 << 2;
+    static final int FLAG_EXCLUDE_FONT_SCALE = 1 << 3;
+    static final int FLAG_NO_RESULT = 1 << 4;
+    private static final String[] DECISION_NAMES = { "global", "custom", "external", "cancel",
+            "unknown" };
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: AdaptJournalReader <adapt-journal.bin>...");
+            System.exit(1);
+        }
+        for (String path : args) {
+            InputStream in = new BufferedInputStream(new FileInputStream(path));
+            try {
+                print(read(in), System.out);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * 读取整个文件, 不会关闭 {@link InputStream}
+     * @param in {@link InputStream}
+     * @return {@link Journal}
+     * @throws IOException 读取失败或者不是 AdaptJournal 导出的文件
+     */
+    public static Journal read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("not an AdaptJournal file");
+        }
+        int version = data.readShort();
+        if (version != VERSION) {
+            throw new IOException("unsupported AdaptJournal version " + version);
+        }
+        Journal journal = new Journal();
+        journal.exportMillis = data.readLong();
+        journal.exportNanos = data.readLong();
+        journal.pid = data.readInt();
+        journal.initDensity = data.readFloat();
+        journal.initDensityDpi = data.readInt();
+        journal.initScaledDensity = data.readFloat();
+        journal.screenWidth = data.readInt();
+        journal.screenHeight = data.readInt();
+        int classCount = data.readInt();
+        List<String> classes = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            classes.add(data.readUTF());
+        }
+        journal.classes = Collections.unmodifiableList(classes);
+        int eventCount = data.readInt();
+        List<Event> events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            Event event = new Event();
+            event.timeNanos = data.readLong();
+            event.durationNanos = data.readInt();
+            event.target = classes.get(data.readInt());
+            event.decision = data.readByte();
+            event.flags = data.readByte();
+            event.sizeInDp = data.readFloat();
+            event.baseSize = data.readInt();
+            event.density = data.readFloat();
+            event.densityDpi = data.readInt();
+            event.scaledDensity = data.readFloat();
+            event.xdpi = data.readFloat();
+            event.screenWidthDp = data.readInt();
+            event.screenHeightDp = data.readInt();
+            events.add(event);
+        }
+        journal.events = Collections.unmodifiableList(events);
+        return journal;
+    }
+
+    /**
+     * 按时间顺序输出所有事件, 每个事件一行
+     * @param journal {@link Journal}
+     * @param out {@link PrintStream}
+     */
+    public static void print(Journal journal, PrintStream out) {
+        SimpleDateFormat format = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.ENGLISH);
+        out.println("pid=" + journal.pid + " exported=" + format.format(
+                new Date(journal.exportMillis)) + " screen=" + journal.screenWidth + 'x'
+                + journal.screenHeight + " initDensity=" + journal.initDensity
+                + " initDensityDpi=" + journal.initDensityDpi + " initScaledDensity="
+                + journal.initScaledDensity + " events=" + journal.events.size());
+        for (Event event : journal.events) {
+            StringBuilder sb = new StringBuilder(format.format(new Date(journal.toMillis(event))))
+                    .append(' ').append(event.target)
+                    .append(" decision=").append(getDecisionName(event.decision))
+                    .append(" us=").append(event.durationNanos / 1000);
+            if (event.hasFlag(FLAG_NO_RESULT)) {
+                out.println(sb.append(" no result"));
+                continue;
+            }
+            if (!event.hasFlag(FLAG_CANCEL)) {
+                sb.append(event.hasFlag(FLAG_BASE_ON_WIDTH) ? " designWidthInDp="
+                        : " designHeightInDp=").append(event.sizeInDp)
+                        .append(" baseSize=").append(event.baseSize)
+                        .append(event.hasFlag(FLAG_CACHE_HIT) ? " hit" : " miss");
+            }
+            if (event.hasFlag(FLAG_EXCLUDE_FONT_SCALE)) {
+                sb.append(" excludeFontScale");
+            }
+            out.println(sb.append(" density=").append(event.density)
+                    .append(" densityDpi=").append(event.densityDpi)
+                    .append(" scaledDensity=").append(event.scaledDensity)
+                    .append(" xdpi=").append(event.xdpi)
+                    .append(" screenDp=").append(event.screenWidthDp).append('x')
+                    .append(event.screenHeightDp));
+        }
+    }
+
+    static String getDecisionName(int decision) {
+        return decision >= 0 && decision < DECISION_NAMES.length ? DECISION_NAMES[decision]
+                : "unknown";
+    }
+
+    /**
+     * 一个导出的文件
+     */
+    public static class Journal {
+        public long exportMillis;
+        public long exportNanos;
+        public int pid;
+        public float initDensity;
+        public int initDensityDpi;
+        public float initScaledDensity;
+        public int screenWidth;
+        public int screenHeight;
+        public List<String> classes;
+        /**
+         * 从旧到新
+         */
+        public List<Event> events;
+
+        /**
+         * @param event {@link Event}
+         * @return 事件发生时的 System.currentTimeMillis()
+         */
+        public long toMillis(Event event) {
+            return exportMillis - (exportNanos - event.timeNanos) / 1000000;
+        }
+    }
+
+    /**
+     * 一次适配
+     */
+    public static class Event {
+        public long timeNanos;
+        public int durationNanos;
+        public String target;
+        public int decision;
+        public int flags;
+        public float sizeInDp;
+        public int baseSize;
+        public float density;
+        public int densityDpi;
+        public float scaledDensity;
+        public float xdpi;
+        public int screenWidthDp;
+        public int screenHeightDp;
+
+        public boolean hasFlag(int flag) {
+            return (flags & flag) != 0;
+        }
+    }
+}
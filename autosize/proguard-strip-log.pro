@@ -0,0 +1,15 @@
+# 可选: 在 release 包中删除 AndroidAutoSize 的所有日志代码
+# 将以下规则复制到 app 的 proguard-rules.pro 即可 (需要开启 R8 优化, 如 proguard-android-optimize.txt)
+# isLoggable 被视为恒为 false, 所有 if (LogUtils.isLoggable(...)) 分支以及日志调用都会被 R8 删除
+
+-assumevalues class me.jessyan.autosize.utils.LogUtils {
+    public static boolean isLoggable(int) return false;
+    public static boolean isDebug() return false;
+}
+
+-assumenosideeffects class me.jessyan.autosize.utils.LogUtils {
+    public static void d(...);
+    public static void i(...);
+    public static void w(...);
+    public static void e(...);
+}
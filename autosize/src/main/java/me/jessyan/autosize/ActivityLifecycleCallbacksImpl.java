@@ -15,12 +15,17 @@
  */
 package me.jessyan.autosize;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import android.app.Activity;
 import android.app.Application;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentActivity;
 
+import me.jessyan.autosize.utils.TraceUtils;
+
 /**
  * ================================================
  * {@link ActivityLifecycleCallbacksImpl} 可用来代替在 BaseActivity 中加入适配代码的传统方式
@@ -49,25 +54,36 @@ public class ActivityLifecycleCallbacksImpl implements Application.ActivityLifec
 
     @Override
     public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
-        if (AutoSizeConfig.getInstance().isCustomFragment()) {
-            if (activity instanceof FragmentActivity) {
-                ((FragmentActivity) activity).getSupportFragmentManager()
-                        .registerFragmentLifecycleCallbacks(mFragmentLifecycleCallbacks, true);
+        boolean traced = TraceUtils.beginSection(TraceUtils.STAGE_ACTIVITY_CREATED,
+                activity.getClass());
+        try {
+            // 延迟初始化模式下, 在第一个 Activity 适配之前完成剩余的初始化
+            AutoSizeConfig.getInstance().ensureInitialized(InitMetrics.TRIGGER_ACTIVITY_CREATED);
+            if (AutoSizeConfig.getInstance().isCustomFragment()) {
+                if (activity instanceof FragmentActivity) {
+                    ((FragmentActivity) activity).getSupportFragmentManager()
+                            .registerFragmentLifecycleCallbacks(mFragmentLifecycleCallbacks, true);
+                }
             }
-        }
 
-        // Activity 中的 setContentView(View) 一定要在 super.onCreate(Bundle); 之后执行
-        if (mAutoAdaptStrategy != null) {
-            mAutoAdaptStrategy.applyAdapt(activity, activity);
+            // Activity 中的 setContentView(View) 一定要在 super.onCreate(Bundle); 之后执行
+            if (mAutoAdaptStrategy != null) {
+                mAutoAdaptStrategy.applyAdapt(activity, activity);
+            }
+        } finally {
+            TraceUtils.endSection(traced);
         }
     }
 
     @Override
     public void onActivityStarted(Activity activity) {
+        AutoSizeConfig.getInstance().getAdaptSnapshotRegistry().setStarted(activity, true);
     }
 
     @Override
     public void onActivityResumed(Activity activity) {
+        // 返回到之前的 Activity 时, 共享的 DisplayMetrics 可能已经被其他 Activity 修改
+        restoreOrReAdapt(mAutoAdaptStrategy, activity, activity);
     }
 
     @Override
@@ -76,6 +92,7 @@ public class ActivityLifecycleCallbacksImpl implements Application.ActivityLifec
 
     @Override
     public void onActivityStopped(Activity activity) {
+        AutoSizeConfig.getInstance().getAdaptSnapshotRegistry().setStarted(activity, false);
     }
 
     @Override
@@ -84,6 +101,88 @@ public class ActivityLifecycleCallbacksImpl implements Application.ActivityLifec
 
     @Override
     public void onActivityDestroyed(Activity activity) {
+        AutoSizeConfig.getInstance().getAdaptSnapshotRegistry().remove(activity);
+    }
+
+    /**
+     * 重新应用 target 的快照, 快照在配置变更后过期时通过 autoAdaptStrategy 重新适配
+     * @return 是否重新适配
+     */
+    static boolean restoreOrReAdapt(AutoAdaptStrategy autoAdaptStrategy, Object target,
+            Activity activity) {
+        AutoSizeConfig config = AutoSizeConfig.getInstance();
+        if (autoAdaptStrategy == null || config.isStop()
+                || AutoSize.restoreAdapt(target, activity)
+                || !config.getAdaptSnapshotRegistry().contains(target)) {
+            return false;
+        }
+        autoAdaptStrategy.applyAdapt(target, activity);
+        return true;
+    }
+
+    /**
+     * 配置变更后, 对所有可见的 {@link Activity} 以及其中的 {@link Fragment} 重新适配, 输入参数没有变化时直接重新应用快照,
+     * 变化时重新计算并回调 {@link onReAdaptListener}; 不可见的在 onResume 时再处理
+     */
+    void reAdaptStartedTargets() {
+        AutoSizeConfig config = AutoSizeConfig.getInstance();
+        if (mAutoAdaptStrategy == null || config.isStop()) {
+            return;
+        }
+        List<Object> targets = new ArrayList<>();
+        List<Activity> activities = new ArrayList<>();
+        config.getAdaptSnapshotRegistry().collectStarted(targets, activities);
+        onReAdaptListener listener = config.getOnReAdaptListener();
+        for (int i = 0; i < targets.size(); i++) {
+            Object target = targets.get(i);
+            Activity activity = activities.get(i);
+            if (restoreOrReAdapt(mAutoAdaptStrategy, target, activity) && listener != null) {
+                listener.onReAdapt(target, activity);
+            }
+        }
+    }
+
+    /**
+     * 对所有可见的 {@link Activity} 以及其中的 {@link Fragment} 重新应用最后一次的快照, 不论快照是否过期, 不重新计算
+     */
+    void reApplyStartedSnapshots() {
+        AutoSizeConfig config = AutoSizeConfig.getInstance();
+        if (config.isStop()) {
+            return;
+        }
+        List<Object> targets = new ArrayList<>();
+        List<Activity> activities = new ArrayList<>();
+        config.getAdaptSnapshotRegistry().collectStarted(targets, activities);
+        for (int i = 0; i < targets.size(); i++) {
+            AutoSize.applySnapshot(targets.get(i), activities.get(i),
+                    AdaptSnapshotRegistry.ANY_GENERATION);
+        }
+    }
+
+    /**
+     * 对 activity 以及其中的 {@link Fragment} 重新适配, 快照没有过期时直接重新应用, 过期 (如 activity 被移动到其他屏幕)
+     * 时重新计算并回调 {@link onReAdaptListener}
+     * @return 是否有 target 重新计算
+     */
+    boolean reAdaptTargetsOf(Activity activity) {
+        AutoSizeConfig config = AutoSizeConfig.getInstance();
+        if (mAutoAdaptStrategy == null || config.isStop()) {
+            return false;
+        }
+        List<Object> targets = new ArrayList<>();
+        config.getAdaptSnapshotRegistry().collectTargetsOf(activity, targets);
+        onReAdaptListener listener = config.getOnReAdaptListener();
+        boolean reAdapted = false;
+        for (int i = 0; i < targets.size(); i++) {
+            Object target = targets.get(i);
+            if (restoreOrReAdapt(mAutoAdaptStrategy, target, activity)) {
+                reAdapted = true;
+                if (listener != null) {
+                    listener.onReAdapt(target, activity);
+                }
+            }
+        }
+        return reAdapted;
     }
 
     /**
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import android.content.Context;
+import android.os.Process;
+
+/**
+ * 最近 {@link #CAPACITY} 次适配的事件日志, 默认开启, 出现缩放异常或启动变慢时可以还原 AndroidAutoSize 的每一步操作,
+ * 不需要一直开着日志
+ * <p>
+ * 每个事件记录时间、target、适配方式 ({@link AdaptMetrics#DECISION_GLOBAL} 等)、输入参数、计算出的
+ * density 以及耗时, 全部保存在预先分配好的基本类型数组中循环覆盖, 记录时不产生对象分配
+ * <p>
+ * 通过 {@link #export(Context)} 或 dumpsys 的 "journal export" 参数导出为二进制文件, 然后使用 autosize-tools 中的
+ * JournalReader 在电脑上解析. 文件格式 (big-endian, {@link DataOutputStream}):
+ * <pre>
+ * int magic ({@link #MAGIC}), short version ({@link #VERSION})
+ * long 导出时的 System.currentTimeMillis(), long 导出时的 System.nanoTime(), int pid
+ * float initDensity, int initDensityDpi, float initScaledDensity, int screenWidth, int screenHeight
+ * int classCount, classCount 个 UTF 类名 (classId 即下标)
+ * int eventCount, eventCount 个事件 (从旧到新):
+ *   long timeNanos (System.nanoTime()), int durationNanos, int classId, byte decision, byte flags,
+ *   float sizeInDp, int baseSize, float density, int densityDpi, float scaledDensity, float xdpi,
+ *   int screenWidthDp, int screenHeightDp
+ * </pre>
+ * 只记录 {@link AutoSize} 的适配, {@link AutoSizeCompat} 会在每次 getResources() 时调用, 记录下来会冲掉有用的事件
+ * @author jiwenjie
+ */
+public final class AdaptJournal {
+    public static final int CAPACITY = 256;
+    public static final int MAGIC = 0x41534A4E;
+    public static final int VERSION = 1;
+    /**
+     * 以宽度为基准进行适配
+     */
+    public static final int FLAG_BASE_ON_WIDTH = 1;
+    /**
+     * density 命中了 {@link DisplayMetricsInfoCache}
+     */
+    public static final int FLAG_CACHE_HIT = 1 << 1;
+    /**
+     * 取消适配, 恢复为系统的初始值
+     */
+    public static final int FLAG_CANCEL = 1 << 2;
+    /**
+     * 忽略了系统字体大小
+     */
+    public static final int FLAG_EXCLUDE_FONT_SCALE = 1 << 3;
+    /**
+     * 没有输入参数以及结果, 如自定义的 {@link AutoAdaptStrategy} 没有调用 {@link AutoSize} 的适配方法
+     */
+    public static final int FLAG_NO_RESULT = 1 << 4;
+    private static final String EXPORT_DIR = "autosize";
+
+    private final long[] mTimeNanos = new long[CAPACITY];
+    private final int[] mDurationNanos = new int[CAPACITY];
+    private final int[] mClassIds = new int[CAPACITY];
+    private final byte[] mDecisions = new byte[CAPACITY];
+    private final byte[] mFlags = new byte[CAPACITY];
+    private final float[] mSizeInDp = new float[CAPACITY];
+    private final int[] mBaseSize = new int[CAPACITY];
+    private final float[] mDensity = new float[CAPACITY];
+    private final int[] mDensityDpi = new int[CAPACITY];
+    private final float[] mScaledDensity = new float[CAPACITY];
+    private final float[] mXdpi = new float[CAPACITY];
+    private final int[] mScreenWidthDp = new int[CAPACITY];
+    private final int[] mScreenHeightDp = new int[CAPACITY];
+    /**
+     * {@link Class} -> classId, 每个 {@link Class} 只在第一次出现时分配 classId
+     */
+    private final Map<Class<?>, Integer> mClassIdMap = new HashMap<>();
+    private final List<Class<?>> mClasses = new ArrayList<>();
+    /**
+     * 记录过的总次数, 下一个事件写入 mCount % CAPACITY
+     */
+    private long mCount;
+    private volatile boolean isEnabled = true;
+
+    /**
+     * {@link WrapperAutoAdaptStrategy} 正在适配时, {@link AutoSize} 只暂存输入参数以及结果, 由
+     * {@link #endAdapt} 补上 target、适配方式以及完整的耗时后写入
+     */
+    private boolean isInAdapt;
+    private boolean isStaged;
+    private int mStagedFlags;
+    private float mStagedSizeInDp;
+    private int mStagedBaseSize;
+    private float mStagedDensity;
+    private int mStagedDensityDpi;
+    private float mStagedScaledDensity;
+    private float mStagedXdpi;
+    private int mStagedScreenWidthDp;
+    private int mStagedScreenHeightDp;
+
+    AdaptJournal() {
+    }
+
+    /**
+     * 是否记录适配事件, 默认开启
+     * @param enabled {@code true} 为开启
+     */
+    public void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * @return 当前保存的事件个数, 最多为 {@link #CAPACITY}
+     */
+    public synchronized int size() {
+        return (int) Math.min(mCount, CAPACITY);
+    }
+
+    /**
+     * 清空所有事件
+     */
+    public synchronized void clear() {
+        mCount = 0;
+        isInAdapt = false;
+        isStaged = false;
+    }
+
+    /**
+     * {@link WrapperAutoAdaptStrategy} 开始适配
+     */
+    synchronized void beginAdapt() {
+        isInAdapt = true;
+        isStaged = false;
+    }
+
+    /**
+     * {@link WrapperAutoAdaptStrategy} 适配结束, 写入一个事件
+     * @param target target 的 {@link Class}
+     * @param decision 适配方式, 如 {@link AdaptMetrics#DECISION_GLOBAL}
+     * @param startNanos 开始适配的时间
+     * @param durationNanos 适配耗时
+     */
+    synchronized void endAdapt(Class<?> target, int decision, long startNanos,
+            long durationNanos) {
+        if (!isInAdapt) {
+            return;
+        }
+        isInAdapt = false;
+        write(target, decision, isStaged ? mStagedFlags : FLAG_NO_RESULT, startNanos,
+                durationNanos);
+        isStaged = false;
+    }
+
+    /**
+     * {@link AutoSize#autoConvertDensity} 计算出了 density
+     */
+    void onConvert(Class<?> activityClass, float sizeInDp, boolean isBaseOnWidth, int baseSize,
+            boolean isCacheHit, DisplayMetricsInfo info, long startNanos) {
+        if (!isEnabled) {
+            return;
+        }
+        int flags = (isBaseOnWidth ? FLAG_BASE_ON_WIDTH : 0) | (isCacheHit ? FLAG_CACHE_HIT : 0)
+                | (AutoSizeConfig.getInstance().isExcludeFontScale() ? FLAG_EXCLUDE_FONT_SCALE
+                        : 0);
+        stage(activityClass, flags, sizeInDp, baseSize, info.getDensity(), info.getDensityDpi(),
+                info.getScaledDensity(), info.getXdpi(), info.getScreenWidthDp(),
+                info.getScreenHeightDp(), startNanos);
+    }
+
+    /**
+     * {@link AutoSize#cancelAdapt} 恢复了系统的初始值
+     * @param profile activity 所在副屏的 {@link DisplayProfile}, 在默认屏幕上时为 {@code null}, 此时记录
+     *            {@link AutoSizeConfig} 中默认屏幕的初始值
+     */
+    void onCancel(Class<?> activityClass, AutoSizeConfig config, DisplayProfile profile,
+            float xdpi, long startNanos) {
+        if (!isEnabled) {
+            return;
+        }
+        if (profile != null) {
+            stage(activityClass, FLAG_CANCEL, 0, 0, profile.getInitDensity(),
+                    profile.getInitDensityDpi(), profile.getInitScaledDensity(), xdpi,
+                    profile.getInitScreenWidthDp(), profile.getInitScreenHeightDp(), startNanos);
+        } else {
+            stage(activityClass, FLAG_CANCEL, 0, 0, config.getInitDensity(),
+                    config.getInitDensityDpi(), config.getInitScaledDensity(), xdpi,
+                    config.getInitScreenWidthDp(), config.getInitScreenHeightDp(), startNanos);
+        }
+    }
+
+    private synchronized void stage(Class<?> activityClass, int flags, float sizeInDp,
+            int baseSize, float density, int densityDpi, float scaledDensity, float xdpi,
+            int screenWidthDp, int screenHeightDp, long startNanos) {
+        mStagedFlags = flags;
+        mStagedSizeInDp = sizeInDp;
+        mStagedBaseSize = baseSize;
+        mStagedDensity = density;
+        mStagedDensityDpi = densityDpi;
+        mStagedScaledDensity = scaledDensity;
+        mStagedXdpi = xdpi;
+        mStagedScreenWidthDp = screenWidthDp;
+        mStagedScreenHeightDp = screenHeightDp;
+        if (isInAdapt) {
+            isStaged = true;
+        } else {
+            // 直接调用 AutoSize 的适配方法, 不经过 WrapperAutoAdaptStrategy
+            write(activityClass, AdaptMetrics.DECISION_UNKNOWN, flags, startNanos,
+                    System.nanoTime() - startNanos);
+        }
+    }
+
+    private void write(Class<?> target, int decision, int flags, long startNanos,
+            long durationNanos) {
+        if (!isEnabled) {
+            return;
+        }
+        int index = (int) (mCount % CAPACITY);
+        mTimeNanos[index] = startNanos;
+        mDurationNanos[index] = (int) Math.min(durationNanos, Integer.MAX_VALUE);
+        mClassIds[index] = getClassId(target);
+        mDecisions[index] = (byte) decision;
+        mFlags[index] = (byte) flags;
+        boolean hasResult = (flags & FLAG_NO_RESULT) == 0;
+        mSizeInDp[index] = hasResult ? mStagedSizeInDp : 0;
+        mBaseSize[index] = hasResult ? mStagedBaseSize : 0;
+        mDensity[index] = hasResult ? mStagedDensity : 0;
+        mDensityDpi[index] = hasResult ? mStagedDensityDpi : 0;
+        mScaledDensity[index] = hasResult ? mStagedScaledDensity : 0;
+        mXdpi[index] = hasResult ? mStagedXdpi : 0;
+        mScreenWidthDp[index] = hasResult ? mStagedScreenWidthDp : 0;
+        mScreenHeightDp[index] = hasResult ? mStagedScreenHeightDp : 0;
+        mCount++;
+    }
+
+    private int getClassId(Class<?> clazz) {
+        Integer id = mClassIdMap.get(clazz);
+        if (id == null) {
+            id = mClasses.size();
+            mClasses.add(clazz);
+            mClassIdMap.put(clazz, id);
+        }
+        return id;
+    }
+
+    /**
+     * 按上面的文件格式写入所有事件, 不会关闭 {@link OutputStream}
+     * @param out {@link OutputStream}
+     * @throws IOException 写入失败
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        // 先在内存中编码, 避免持有锁的同时进行 IO, 阻塞主线程的适配
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * CAPACITY);
+        DataOutputStream data = new DataOutputStream(buffer);
+        AutoSizeConfig config = AutoSizeConfig.getInstance();
+        synchronized (this) {
+            data.writeInt(MAGIC);
+            data.writeShort(VERSION);
+            data.writeLong(System.currentTimeMillis());
+            data.writeLong(System.nanoTime());
+            data.writeInt(Process.myPid());
+            data.writeFloat(config.getInitDensity());
+            data.writeInt(config.getInitDensityDpi());
+            data.writeFloat(config.getInitScaledDensity());
+            data.writeInt(config.getScreenWidth());
+            data.writeInt(config.getScreenHeight());
+            data.writeInt(mClasses.size());
+            for (Class<?> clazz : mClasses) {
+                data.writeUTF(clazz.getName());
+            }
+            int size = size();
+            data.writeInt(size);
+            for (int i = size; i > 0; i--) {
+                int index = (int) ((mCount - i) % CAPACITY);
+                data.writeLong(mTimeNanos[index]);
+                data.writeInt(mDurationNanos[index]);
+                data.writeInt(mClassIds[index]);
+                data.writeByte(mDecisions[index]);
+                data.writeByte(mFlags[index]);
+                data.writeFloat(mSizeInDp[index]);
+                data.writeInt(mBaseSize[index]);
+                data.writeFloat(mDensity[index]);
+                data.writeInt(mDensityDpi[index]);
+                data.writeFloat(mScaledDensity[index]);
+                data.writeFloat(mXdpi[index]);
+                data.writeInt(mScreenWidthDp[index]);
+                data.writeInt(mScreenHeightDp[index]);
+            }
+        }
+        data.flush();
+        buffer.writeTo(out);
+    }
+
+    /**
+     * 导出到 filesDir/autosize/adapt-journal-{时间}.bin, 可以通过 adb shell run-as 或者应用内的反馈渠道取出
+     * @param context {@link Context}
+     * @return 导出的文件
+     * @throws IOException 写入失败
+     */
+    public File export(Context context) throws IOException {
+        File dir = new File(context.getFilesDir(), EXPORT_DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("can't create " + dir);
+        }
+        File file = new File(dir, "adapt-journal-" + System.currentTimeMillis() + ".bin");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            writeTo(out);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    /**
+     * 从最新的一个事件开始输出
+     * @param pw {@link PrintWriter}
+     * @param prefix 每一行的前缀
+     * @param limit 最多输出多少个事件
+     */
+    synchronized void dump(PrintWriter pw, String prefix, int limit) {
+        SimpleDateFormat format = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.ENGLISH);
+        long nowMillis = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+        int size = Math.min(size(), limit);
+        for (int i = 1; i <= size; i++) {
+            int index = (int) ((mCount - i) % CAPACITY);
+            int flags = mFlags[index];
+            pw.print(prefix);
+            pw.print(format.format(
+                    new Date(nowMillis - (nowNanos - mTimeNanos[index]) / 1000000)));
+            pw.print(' ');
+            pw.print(mClasses.get(mClassIds[index]).getName());
+            pw.print(" decision=");
+            pw.print(AdaptMetrics.getDecisionName(mDecisions[index]));
+            pw.print(" us=");
+            pw.print(mDurationNanos[index] / 1000);
+            if ((flags & FLAG_NO_RESULT) != 0) {
+                pw.println(" no result");
+                continue;
+            }
+            if ((flags & FLAG_CANCEL) == 0) {
+                pw.print((flags & FLAG_BASE_ON_WIDTH) != 0 ? " designWidthInDp="
+                        : " designHeightInDp=");
+                pw.print(mSizeInDp[index]);
+                pw.print(" baseSize=");
+                pw.print(mBaseSize[index]);
+                pw.print((flags & FLAG_CACHE_HIT) != 0 ? " hit" : " miss");
+            }
+            pw.print(" density=");
+            pw.print(mDensity[index]);
+            pw.print(" densityDpi=");
+            pw.print(mDensityDpi[index]);
+            pw.print(" scaledDensity=");
+            pw.print(mScaledDensity[index]);
+            pw.print(" screenDp=");
+            pw.print(mScreenWidthDp[index]);
+            pw.print('x');
+            pw.println(mScreenHeightDp[index]);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import me.jessyan.autosize.external.ExternalAdaptInfo;
+import me.jessyan.autosize.internal.CancelAdapt;
+import me.jessyan.autosize.internal.CustomAdapt;
+
+/**
+ * 适配耗时的统计, 可通过 {@link AutoSizeConfig#getAdaptMetrics()} 获取, 默认关闭, 调用 {@link #setEnabled(boolean)}
+ * 开启后由 {@link WrapperAutoAdaptStrategy} 记录每次适配
+ * <p>
+ * 按 target 的 {@link Class} 统计适配次数以及固定分桶的耗时直方图, 另外统计各种适配方式的次数以及
+ * {@link DisplayMetricsInfoCache} 的命中率; 统计过程只有原子操作, 稳定状态下不产生对象分配, 可以在线上开启,
+ * 找出适配开销最大的页面
+ * <p>
+ * 通过 {@link #setSampleRate(int)} 开启采样后, 每 N 次适配只记录一次, {@link #getAdaptCount()} 仍然是全部次数
+ * @author jiwenjie
+ */
+public final class AdaptMetrics {
+    /**
+     * 使用 AndroidManifest 中的全局参数适配
+     */
+    public static final int DECISION_GLOBAL = 0;
+    /**
+     * target 实现了 {@link CustomAdapt}
+     */
+    public static final int DECISION_CUSTOM = 1;
+    /**
+     * 使用 {@link ExternalAdaptInfo} 适配
+     */
+    public static final int DECISION_EXTERNAL = 2;
+    /**
+     * 取消适配, target 实现了 {@link CancelAdapt} 或通过 ExternalAdaptManager 取消
+     */
+    public static final int DECISION_CANCEL = 3;
+    /**
+     * 使用的是自定义的 {@link AutoAdaptStrategy}, 无法得知适配方式; 在 {@link AdaptJournal} 中也表示直接调用了
+     * {@link AutoSize} 的适配方法
+     */
+    public static final int DECISION_UNKNOWN = 4;
+    private static final int DECISION_COUNT = 5;
+    private static final String[] DECISION_NAMES = { "global", "custom", "external", "cancel",
+            "unknown" };
+
+    /**
+     * 耗时直方图各个桶的上限 (不含), 单位 us, 最后一个桶收集超出所有上限的耗时
+     */
+    private static final long[] BUCKET_UPPER_BOUNDS_MICROS = { 50, 100, 200, 500, 1000, 2000,
+            5000, 10000, 20000 };
+    private static final int BUCKET_COUNT = BUCKET_UPPER_BOUNDS_MICROS.length + 1;
+
+    private final AutoSizeConfig mConfig;
+    private final ConcurrentHashMap<Class<?>, ClassMetrics> mClassMetrics =
+            new ConcurrentHashMap<>();
+    private final AtomicLongArray mDecisionCounts = new AtomicLongArray(DECISION_COUNT);
+    private final AtomicLong mAdaptCount = new AtomicLong();
+    private final AtomicLong mSampledCount = new AtomicLong();
+    private volatile boolean isEnabled;
+    private volatile int mSampleRate = 1;
+
+    AdaptMetrics(AutoSizeConfig config) {
+        mConfig = config;
+    }
+
+    /**
+     * 是否开启统计, 默认关闭, 关闭时每次适配只有一次 volatile 读
+     * @param enabled {@code true} 为开启
+     */
+    public AdaptMetrics setEnabled(boolean enabled) {
+        isEnabled = enabled;
+        return this;
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * 采样记录, 每 everyN 次适配只记录第一次
+     * @param everyN 采样间隔, 小于等于 1 时记录每一次适配
+     */
+    public AdaptMetrics setSampleRate(int everyN) {
+        mSampleRate = Math.max(everyN, 1);
+        return this;
+    }
+
+    public int getSampleRate() {
+        return mSampleRate;
+    }
+
+    /**
+     * 本次适配是否需要记录, 每次适配调用一次
+     * @return {@code true} 表示需要计时并调用 {@link #record(Class, int, long)}
+     */
+    boolean shouldRecord() {
+        if (!isEnabled) {
+            return false;
+        }
+        long count = mAdaptCount.getAndIncrement();
+        int sampleRate = mSampleRate;
+        return sampleRate <= 1 || count % sampleRate == 0;
+    }
+
+    /**
+     * 记录一次适配
+     * @param targetClass target 的 {@link Class}
+     * @param decision 适配方式, 如 {@link #DECISION_GLOBAL}
+     * @param nanos 耗时, 单位 ns
+     */
+    void record(Class<?> targetClass, int decision, long nanos) {
+        mSampledCount.incrementAndGet();
+        mDecisionCounts.incrementAndGet(decision);
+        ClassMetrics metrics = mClassMetrics.get(targetClass);
+        if (metrics == null) {
+            ClassMetrics newMetrics = new ClassMetrics();
+            metrics = mClassMetrics.putIfAbsent(targetClass, newMetrics);
+            if (metrics == null) {
+                metrics = newMetrics;
+            }
+        }
+        metrics.record(nanos);
+    }
+
+    /**
+     * @return 开启统计以来的适配次数, 包括没有被采样的
+     */
+    public long getAdaptCount() {
+        return mAdaptCount.get();
+    }
+
+    /**
+     * @return 被记录的适配次数, 没有开启采样时与 {@link #getAdaptCount()} 相同
+     */
+    public long getSampledCount() {
+        return mSampledCount.get();
+    }
+
+    /**
+     * @param decision 适配方式, 如 {@link #DECISION_CANCEL}
+     * @return 被记录的适配中, 使用该适配方式的次数
+     */
+    public long getDecisionCount(int decision) {
+        return mDecisionCounts.get(decision);
+    }
+
+    /**
+     * @return {@link DisplayMetricsInfoCache} 的命中率, 包括默认屏幕以及当前所有副屏 ({@link DisplayProfile}) 的缓存,
+     *         还没有查询过缓存时为 0
+     */
+    public float getCacheHitRatio() {
+        DisplayMetricsInfoCache cache = mConfig.getDisplayMetricsInfoCache();
+        long hit = cache.getHitCount();
+        long miss = cache.getMissCount();
+        for (DisplayProfile profile : mConfig.getDisplayProfiles()) {
+            DisplayMetricsInfoCache profileCache = profile.getDisplayMetricsInfoCache();
+            hit += profileCache.getHitCount();
+            miss += profileCache.getMissCount();
+        }
+        long total = hit + miss;
+        return total == 0 ? 0 : hit * 1.0f / total;
+    }
+
+    /**
+     * @param decision 适配方式, 如 {@link #DECISION_GLOBAL}
+     * @return 适配方式的名称, 如 "global"
+     */
+    public static String getDecisionName(int decision) {
+        return decision >= 0 && decision < DECISION_COUNT ? DECISION_NAMES[decision] : "unknown";
+    }
+
+    /**
+     * @return 耗时直方图桶的个数
+     */
+    public static int getBucketCount() {
+        return BUCKET_COUNT;
+    }
+
+    /**
+     * @param bucket 桶的下标
+     * @return 该桶的上限 (不含), 单位 us, 最后一个桶为 {@link Long#MAX_VALUE}
+     */
+    public static long getBucketUpperBoundMicros(int bucket) {
+        return bucket < BUCKET_UPPER_BOUNDS_MICROS.length ? BUCKET_UPPER_BOUNDS_MICROS[bucket]
+                : Long.MAX_VALUE;
+    }
+
+    /**
+     * @param targetClass target 的 {@link Class}
+     * @return 该 target 的统计, 没有记录过时返回 {@code null}
+     */
+    public ClassMetrics getClassMetrics(Class<?> targetClass) {
+        return mClassMetrics.get(targetClass);
+    }
+
+    /**
+     * @return 所有 target 的统计, 只读
+     */
+    public Map<Class<?>, ClassMetrics> getAllClassMetrics() {
+        return Collections.unmodifiableMap(mClassMetrics);
+    }
+
+    /**
+     * 清空所有统计, 包括默认屏幕以及所有副屏 {@link DisplayMetricsInfoCache} 的命中统计
+     * ({@link #getCacheHitRatio()}), 不影响 {@link #isEnabled()} 和 {@link #getSampleRate()}
+     */
+    public void reset() {
+        mClassMetrics.clear();
+        for (int i = 0; i < DECISION_COUNT; i++) {
+            mDecisionCounts.set(i, 0);
+        }
+        mAdaptCount.set(0);
+        mSampledCount.set(0);
+        mConfig.getDisplayMetricsInfoCache().resetStats();
+        for (DisplayProfile profile : mConfig.getDisplayProfiles()) {
+            profile.getDisplayMetricsInfoCache().resetStats();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("AdaptMetrics{adaptCount=").append(getAdaptCount())
+                .append(", sampledCount=").append(getSampledCount())
+                .append(", sampleRate=").append(mSampleRate)
+                .append(", cacheHitRatio=").append(getCacheHitRatio());
+        for (int i = 0; i < DECISION_COUNT; i++) {
+            sb.append(", ").append(DECISION_NAMES[i]).append('=').append(mDecisionCounts.get(i));
+        }
+        for (Map.Entry<Class<?>, ClassMetrics> entry : mClassMetrics.entrySet()) {
+            sb.append(",\n  ").append(entry.getKey().getName()).append(' ')
+                    .append(entry.getValue());
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * 单个 target {@link Class} 的统计
+     */
+    public static final class ClassMetrics {
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mTotalNanos = new AtomicLong();
+        private final AtomicLong mMaxNanos = new AtomicLong();
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+
+        ClassMetrics() {
+        }
+
+        void record(long nanos) {
+            mCount.incrementAndGet();
+            mTotalNanos.addAndGet(nanos);
+            long max;
+            do {
+                max = mMaxNanos.get();
+            } while (nanos > max && !mMaxNanos.compareAndSet(max, nanos));
+            mBuckets.incrementAndGet(bucketOf(nanos / 1000));
+        }
+
+        private static int bucketOf(long micros) {
+            for (int i = 0; i < BUCKET_UPPER_BOUNDS_MICROS.length; i++) {
+                if (micros < BUCKET_UPPER_BOUNDS_MICROS[i]) {
+                    return i;
+                }
+            }
+            return BUCKET_UPPER_BOUNDS_MICROS.length;
+        }
+
+        /**
+         * @return 被记录的适配次数
+         */
+        public long getCount() {
+            return mCount.get();
+        }
+
+        /**
+         * @return 总耗时, 单位 ns
+         */
+        public long getTotalNanos() {
+            return mTotalNanos.get();
+        }
+
+        /**
+         * @return 最大耗时, 单位 ns
+         */
+        public long getMaxNanos() {
+            return mMaxNanos.get();
+        }
+
+        /**
+         * @param bucket 桶的下标, 上限见 {@link AdaptMetrics#getBucketUpperBoundMicros(int)}
+         * @return 落在该桶中的次数
+         */
+        public long getBucketCount(int bucket) {
+            return mBuckets.get(bucket);
+        }
+
+        @Override
+        public String toString() {
+            long count = getCount();
+            StringBuilder sb = new StringBuilder("{count=").append(count)
+                    .append(", avgUs=").append(count == 0 ? 0 : getTotalNanos() / count / 1000)
+                    .append(", maxUs=").append(getMaxNanos() / 1000).append(", buckets=[");
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                if (i < BUCKET_UPPER_BOUNDS_MICROS.length) {
+                    sb.append('<').append(BUCKET_UPPER_BOUNDS_MICROS[i]);
+                } else {
+                    sb.append(">=").append(BUCKET_UPPER_BOUNDS_MICROS[i - 1]);
+                }
+                sb.append("us:").append(mBuckets.get(i));
+            }
+            return sb.append("]}").toString();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import android.app.Activity;
+
+/**
+ * 记录每个 {@link Activity} 以及 Fragment 最后一次应用的 {@link DisplayMetricsInfo}, 同时也是存活 target 的注册表
+ * <p>
+ * 适配会修改 Application 的 {@link android.content.res.Resources} 等共享的 {@link android.util.DisplayMetrics},
+ * 返回之前的 {@link Activity} 时, 共享的值还是最后一个创建的 {@link Activity} 的, 之后的 inflate 以及 dp 转换都会
+ * 使用错误的 density, 所以在 onResume 时需要通过 {@link AutoSize#restoreAdapt(Object, Activity)} 直接重新应用快照,
+ * 不需要重新计算
+ * <p>
+ * 每个快照都带有计算时的 {@link AutoSizeConfig#getInputGeneration()}, 屏幕尺寸、方向或字体大小变化后快照过期,
+ * 可见的 target 由 {@link ActivityLifecycleCallbacksImpl#reAdaptStartedTargets()} 立即重新适配, 其余的在 onResume
+ * 时重新适配; 快照同时带有计算时所在屏幕的 display id, {@link Activity} 被移动到其他屏幕后快照同样过期;
+ * 开启了 {@link AutoSizeConfig#isUseWindowBounds()} 时还带有计算时按 bucket 取整的窗口尺寸, 进入分屏或者调整窗口尺寸
+ * 不会改变 generation, 窗口尺寸不一致时快照同样过期
+ * <p>
+ * 使用 {@link WeakHashMap}, 不会影响 {@link Activity} 以及 Fragment 的回收; 已经记录过的 target 再次记录时不产生对象分配
+ * @author jiwenjie
+ */
+final class AdaptSnapshotRegistry {
+    /**
+     * 取消适配的快照, 重新应用时恢复为系统的初始值
+     */
+    static final DisplayMetricsInfo CANCEL = new DisplayMetricsInfo(0, 0, 0, 0);
+    /**
+     * 传给 {@link #get(Object, int, int)} 时忽略 generation, 用于持续调整窗口尺寸期间保持上一次的 density
+     */
+    static final int ANY_GENERATION = -1;
+    /**
+     * 没有使用窗口尺寸适配 (没有开启 {@link AutoSizeConfig#isUseWindowBounds()} 或者不在多窗口模式) 时的窗口尺寸
+     */
+    static final long FULL_WINDOW = 0;
+
+    private final Map<Object, Entry> mEntries = new WeakHashMap<>();
+
+    /**
+     * @param target {@link Activity} 或 Fragment
+     * @param activity target 所在的 {@link Activity}
+     * @param snapshot 应用的 {@link DisplayMetricsInfo}, 取消适配时为 {@link #CANCEL}
+     * @param generation 计算 snapshot 时的 {@link AutoSizeConfig#getInputGeneration()}
+     * @param displayId 计算 snapshot 时 activity 所在屏幕的 display id
+     * @param windowKey 计算 snapshot 时的窗口尺寸 ({@link #packWindowSize(int, int)}), 或者 {@link #FULL_WINDOW}
+     */
+    synchronized void put(Object target, Activity activity, DisplayMetricsInfo snapshot,
+            int generation, int displayId, long windowKey) {
+        Entry entry = mEntries.get(target);
+        if (entry == null) {
+            entry = new Entry();
+            mEntries.put(target, entry);
+        }
+        if (entry.activityRef == null || entry.activityRef.get() != activity) {
+            entry.activityRef = new WeakReference<>(activity);
+        }
+        entry.snapshot = snapshot;
+        entry.generation = generation;
+        entry.displayId = displayId;
+        entry.windowKey = windowKey;
+    }
+
+    /**
+     * @param target {@link Activity} 或 Fragment
+     * @param generation 当前的 {@link AutoSizeConfig#getInputGeneration()}, 或者 {@link #ANY_GENERATION}
+     * @param displayId target 所在的 {@link Activity} 当前所在屏幕的 display id
+     * @param windowKey target 所在的 {@link Activity} 当前的窗口尺寸, generation 为 {@link #ANY_GENERATION} 时同样忽略;
+     *            {@link #CANCEL} 与窗口尺寸无关, 不做比较
+     * @return 最后一次应用的 {@link DisplayMetricsInfo}, 取消适配时为 {@link #CANCEL}, 没有适配过或者已经过期时为
+     *         {@code null}
+     */
+    synchronized DisplayMetricsInfo get(Object target, int generation, int displayId,
+            long windowKey) {
+        Entry entry = mEntries.get(target);
+        if (entry == null || entry.displayId != displayId) {
+            return null;
+        }
+        if (generation == ANY_GENERATION) {
+            return entry.snapshot;
+        }
+        return entry.generation == generation
+                && (entry.snapshot == CANCEL || entry.windowKey == windowKey) ? entry.snapshot
+                        : null;
+    }
+
+    synchronized boolean contains(Object target) {
+        return mEntries.containsKey(target);
+    }
+
+    /**
+     * 把 activity 当前的快照同时记录给 target, 用于 Fragment 的适配, 两者共享同一个 {@link DisplayMetricsInfo}
+     * @param target Fragment
+     * @param activity target 所在的 {@link Activity}
+     */
+    synchronized void copy(Object target, Activity activity) {
+        Entry entry = mEntries.get(activity);
+        if (entry != null) {
+            put(target, activity, entry.snapshot, entry.generation, entry.displayId,
+                    entry.windowKey);
+        }
+    }
+
+    synchronized void remove(Object target) {
+        mEntries.remove(target);
+    }
+
+    /**
+     * 记录 {@link Activity} 是否可见, 只有可见的 target 会在配置变更时立即重新适配
+     */
+    synchronized void setStarted(Activity activity, boolean started) {
+        Entry entry = mEntries.get(activity);
+        if (entry != null) {
+            entry.isStarted = started;
+        }
+    }
+
+    /**
+     * 收集所有可见的 target, 先是 {@link Activity}, 然后是其中的 Fragment, 与创建时的适配顺序一致
+     * @param outTargets 写入 target
+     * @param outActivities 写入 target 所在的 {@link Activity}, 与 outTargets 一一对应
+     */
+    synchronized void collectStarted(List<Object> outTargets, List<Activity> outActivities) {
+        for (int pass = 0; pass < 2; pass++) {
+            for (Map.Entry<Object, Entry> e : mEntries.entrySet()) {
+                Object target = e.getKey();
+                Activity activity = e.getValue().activityRef.get();
+                if (target == null || activity == null || activity.isFinishing()
+                        || (target == activity) != (pass == 0)) {
+                    continue;
+                }
+                Entry activityEntry = mEntries.get(activity);
+                if (activityEntry != null && activityEntry.isStarted) {
+                    outTargets.add(target);
+                    outActivities.add(activity);
+                }
+            }
+        }
+    }
+
+    /**
+     * 收集 activity 自身以及其中的 Fragment, 先是 {@link Activity}, 然后是 Fragment
+     * @param activity {@link Activity}
+     * @param outTargets 写入 target
+     */
+    synchronized void collectTargetsOf(Activity activity, List<Object> outTargets) {
+        if (mEntries.containsKey(activity)) {
+            outTargets.add(activity);
+        }
+        for (Map.Entry<Object, Entry> e : mEntries.entrySet()) {
+            Object target = e.getKey();
+            if (target != null && target != activity
+                    && e.getValue().activityRef.get() == activity) {
+                outTargets.add(target);
+            }
+        }
+    }
+
+    /**
+     * @return 窗口尺寸合并成的 key, 用于判断快照是否过期
+     */
+    static long packWindowSize(int width, int height) {
+        return (long) width << 32 | (height & 0xFFFFFFFFL);
+    }
+
+    synchronized int size() {
+        return mEntries.size();
+    }
+
+    private static final class Entry {
+        DisplayMetricsInfo snapshot;
+        int generation;
+        int displayId;
+        long windowKey;
+        WeakReference<Activity> activityRef;
+        /**
+         * 只对 {@link Activity} 自身的记录有效
+         */
+        boolean isStarted;
+    }
+}
@@ -15,9 +15,7 @@
  */
 package me.jessyan.autosize;
 
-import java.util.Locale;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import android.app.Activity;
 import android.app.Application;
@@ -28,6 +26,7 @@ import android.content.res.Resources;
 import android.database.Cursor;
 import android.net.Uri;
 import android.util.DisplayMetrics;
+import android.view.Display;
 import android.view.View;
 
 import me.jessyan.autosize.external.ExternalAdaptInfo;
@@ -36,10 +35,12 @@ import me.jessyan.autosize.internal.CancelAdapt;
 import me.jessyan.autosize.internal.CustomAdapt;
 import me.jessyan.autosize.unit.UnitsManager;
 import me.jessyan.autosize.utils.AppUtils;
+import me.jessyan.autosize.utils.DisplayInfoManager;
 import me.jessyan.autosize.utils.LogUtils;
 import me.jessyan.autosize.utils.Preconditions;
-import me.jessyan.autosize.utils.ScreenUtils;
+import me.jessyan.autosize.utils.TraceUtils;
 import me.jessyan.autosize.utils.WindowParams;
+import me.jessyan.autosize.utils.WindowUtils;
 
 /**
  * ================================================
@@ -58,7 +59,14 @@ import me.jessyan.autosize.utils.WindowParams;
  * ================================================
  */
 public final class AutoSize {
-    private static Map<String, DisplayMetricsInfo> mCache = new ConcurrentHashMap<>();
+    /**
+     * 跳过的写入次数, 仅作统计用途; {@link AutoSizeCompat} 可能在任意线程中调用, 所以使用 {@link AtomicLong}
+     */
+    private static final AtomicLong sSkippedWriteCount = new AtomicLong();
+    /**
+     * 获取窗口尺寸时复用的数组, 适配只在主线程中进行
+     */
+    private static final int[] sTmpWindowSize = new int[2];
 
     private AutoSize() {
         throw new IllegalStateException("you can't instantiate me!");
@@ -114,75 +122,137 @@ public final class AutoSize {
             boolean isBaseOnWidth) {
         Preconditions.checkNotNull(activity, "activity == null");
 
+        long startNanos = System.nanoTime();
         AutoSizeConfig config = AutoSizeConfig.getInstance();
+        config.ensureInitialized(InitMetrics.TRIGGER_ADAPT);
         float subunitsDesignSize = isBaseOnWidth ? config.getUnitsManager().getDesignWidth()
                 : config.getUnitsManager().getDesignHeight();
         subunitsDesignSize = subunitsDesignSize > 0 ? subunitsDesignSize : sizeInDp;
 
-        int baseSize = isBaseOnWidth ? config.getScreenWidth() : config.getScreenHeight();
-        if (AppUtils.isExtDevice(activity) && AppUtils.keepIntrinsic(activity)) {
-            DisplayMetrics metrics = ScreenUtils.getDisplayMetrics(activity);
-            WindowParams params = AppUtils.getActivityWindowParams(activity);
-            if (params != null) {
-                baseSize = (int) ((isBaseOnWidth ? params.getWidth() : params.getHeight())
-                        * metrics.density);
+        // 副屏使用自己的屏幕尺寸、初始 density 以及缓存, 不影响默认屏幕
+        DisplayProfile profile = config.getDisplayProfile(activity);
+        int displayId = profile != null ? profile.getDisplayId() : Display.DEFAULT_DISPLAY;
+        int screenWidth = profile != null ? profile.getScreenWidth() : config.getScreenWidth();
+        int screenHeight = profile != null ? profile.getScreenHeight() : config.getScreenHeight();
+        float initDensity = profile != null ? profile.getInitDensity() : config.getInitDensity();
+        float initScaledDensity = profile != null ? profile.getInitScaledDensity()
+                : config.getInitScaledDensity();
+        int otherSize = 0;
+        long windowKey = AdaptSnapshotRegistry.FULL_WINDOW;
+        Class<?> activityClass = activity.getClass();
+        int baseSize;
+        boolean traced = TraceUtils.beginSection(TraceUtils.STAGE_WINDOW_PARAMS, activityClass);
+        try {
+            if (getBucketedWindowSize(config, activity, initDensity, sTmpWindowSize)) {
+                screenWidth = sTmpWindowSize[0];
+                screenHeight = sTmpWindowSize[1];
+                otherSize = isBaseOnWidth ? screenHeight : screenWidth;
+                windowKey = AdaptSnapshotRegistry.packWindowSize(screenWidth, screenHeight);
+            }
+            baseSize = isBaseOnWidth ? screenWidth : screenHeight;
+            if (AppUtils.isExtDevice(activity) && AppUtils.keepIntrinsic(activity)) {
+                WindowParams params = AppUtils.getActivityWindowParams(activity);
+                if (params != null) {
+                    baseSize = (int) ((isBaseOnWidth ? params.getWidth() : params.getHeight())
+                            * initDensity);
+                }
             }
+        } finally {
+            TraceUtils.endSection(traced);
         }
-        String key = sizeInDp + "|" + subunitsDesignSize + "|" + isBaseOnWidth + "|"
-                + config.isUseDeviceSize() + "|" + config.getInitScaledDensity() + "|" + baseSize;
 
-        float targetDensity;
-        int targetDensityDpi;
-        float targetScaledDensity;
-        float targetXdpi;
-        int targetScreenWidthDp;
-        int targetScreenHeightDp;
-        DisplayMetricsInfo displayMetricsInfo = mCache.get(key);
-        if (displayMetricsInfo == null) {
-            // 根据设计图尺寸，重新计算density
-            targetDensity = baseSize * 1.0f / sizeInDp;
-            targetDensityDpi = (int) (targetDensity * 160);
-            // 系统字体改变
-            float scale = config.isExcludeFontScale() ? 1
-                    : config.getInitScaledDensity() * 1.0f / config.getInitDensity();
-            targetScaledDensity = targetDensity * scale;
-            targetXdpi = baseSize * 1.0f / subunitsDesignSize;
-            targetScreenWidthDp = (int) (config.getScreenWidth() / targetDensity);
-            targetScreenHeightDp = (int) (config.getScreenHeight() / targetDensity);
-
-            mCache.put(key, new DisplayMetricsInfo(targetDensity, targetDensityDpi,
-                    targetScaledDensity, targetXdpi, targetScreenWidthDp, targetScreenHeightDp));
-        } else {
-            targetDensity = displayMetricsInfo.getDensity();
-            targetDensityDpi = displayMetricsInfo.getDensityDpi();
-            targetScaledDensity = displayMetricsInfo.getScaledDensity();
-            targetXdpi = displayMetricsInfo.getXdpi();
-            targetScreenWidthDp = displayMetricsInfo.getScreenWidthDp();
-            targetScreenHeightDp = displayMetricsInfo.getScreenHeightDp();
+        DisplayMetricsInfo displayMetricsInfo;
+        boolean isCacheHit;
+        traced = TraceUtils.beginSection(TraceUtils.STAGE_DENSITY, activityClass);
+        try {
+            long keyHigh = DisplayMetricsInfoCache.packHigh(sizeInDp, subunitsDesignSize);
+            long keyLow = DisplayMetricsInfoCache.packLow(initScaledDensity, baseSize, otherSize,
+                    isBaseOnWidth, config.isUseDeviceSize());
+            DisplayMetricsInfoCache cache = profile != null
+                    ? profile.getDisplayMetricsInfoCache() : config.getDisplayMetricsInfoCache();
+            boolean isCacheable = DisplayMetricsInfoCache.isPackable(baseSize, otherSize);
+            displayMetricsInfo = isCacheable ? cache.get(keyHigh, keyLow) : null;
+            isCacheHit = displayMetricsInfo != null;
+            if (!isCacheHit) {
+                displayMetricsInfo = calculateDisplayMetricsInfo(config, sizeInDp,
+                        subunitsDesignSize, baseSize, screenWidth, screenHeight, initDensity,
+                        initScaledDensity);
+                if (isCacheable) {
+                    cache.put(keyHigh, keyLow, displayMetricsInfo);
+                }
+            }
+        } finally {
+            TraceUtils.endSection(traced);
         }
+        float targetDensity = displayMetricsInfo.getDensity();
+        int targetDensityDpi = displayMetricsInfo.getDensityDpi();
+        float targetScaledDensity = displayMetricsInfo.getScaledDensity();
+        float targetXdpi = displayMetricsInfo.getXdpi();
+        int targetScreenWidthDp = displayMetricsInfo.getScreenWidthDp();
+        int targetScreenHeightDp = displayMetricsInfo.getScreenHeightDp();
 
-        setDensity(activity, targetDensity, targetDensityDpi, targetScaledDensity, targetXdpi);
-        setScreenSizeDp(activity, targetScreenWidthDp, targetScreenHeightDp);
+        traced = TraceUtils.beginSection(TraceUtils.STAGE_METRICS_WRITE, activityClass);
+        try {
+            boolean isDefaultDisplay = profile == null;
+            setDensity(activity, isDefaultDisplay, targetDensity, targetDensityDpi,
+                    targetScaledDensity, targetXdpi);
+            setScreenSizeDp(activity, isDefaultDisplay, targetScreenWidthDp,
+                    targetScreenHeightDp);
+        } finally {
+            TraceUtils.endSection(traced);
+        }
+        config.getAdaptSnapshotRegistry().put(activity, activity, displayMetricsInfo,
+                config.getInputGeneration(), displayId, windowKey);
+        config.getAdaptJournal().onConvert(activityClass, sizeInDp, isBaseOnWidth, baseSize,
+                isCacheHit, displayMetricsInfo, startNanos);
+
+        // 关闭日志时不能装箱参数, 否则每次适配都会产生对象分配
+        if (LogUtils.isLoggable(LogUtils.DEBUG)) {
+            LogUtils.d(LogUtils.TAG_ADAPT,
+                    "%s has been adapted! isBaseOnWidth = %s, %s = %.2f, %s = %.2f, targetDensity = %.2f, targetScaledDensity = %.2f, targetDensityDpi = %d, targetXdpi = %.2f, targetScreenWidthDp = %d, targetScreenHeightDp = %d",
+                    activity.getClass().getName(), isBaseOnWidth,
+                    isBaseOnWidth ? "designWidthInDp" : "designHeightInDp", sizeInDp,
+                    isBaseOnWidth ? "designWidthInSubunits" : "designHeightInSubunits",
+                    subunitsDesignSize, targetDensity, targetScaledDensity, targetDensityDpi,
+                    targetXdpi, targetScreenWidthDp, targetScreenHeightDp);
+        }
+    }
 
-        LogUtils.d(String.format(Locale.ENGLISH,
-                "%s has been adapted! \n%s Info: isBaseOnWidth = %s, %s = %.2f, %s = %.2f, targetDensity = %.2f, targetScaledDensity = %.2f, targetDensityDpi = %d, targetXdpi = %.2f, targetScreenWidthDp = %d, targetScreenHeightDp = %d",
-                activity.getClass().getName(), activity.getClass().getSimpleName(), isBaseOnWidth,
-                isBaseOnWidth ? "designWidthInDp" : "designHeightInDp", sizeInDp,
-                isBaseOnWidth ? "designWidthInSubunits" : "designHeightInSubunits",
-                subunitsDesignSize, targetDensity, targetScaledDensity, targetDensityDpi,
-                targetXdpi, targetScreenWidthDp, targetScreenHeightDp));
+    /**
+     * 根据设计图尺寸，重新计算density
+     * @param baseSize 适配基准的屏幕尺寸, 单位 px
+     * @param screenWidth 屏幕 (或窗口) 宽度, 用于计算 screenWidthDp
+     * @param screenHeight 屏幕 (或窗口) 高度, 用于计算 screenHeightDp
+     * @param initDensity 所在屏幕的初始 density
+     * @param initScaledDensity 所在屏幕的初始 scaledDensity
+     */
+    private static DisplayMetricsInfo calculateDisplayMetricsInfo(AutoSizeConfig config,
+            float sizeInDp, float subunitsDesignSize, int baseSize, int screenWidth,
+            int screenHeight, float initDensity, float initScaledDensity) {
+        float targetDensity = baseSize * 1.0f / sizeInDp;
+        int targetDensityDpi = (int) (targetDensity * 160);
+        // 系统字体改变
+        float scale = config.isExcludeFontScale() ? 1 : initScaledDensity * 1.0f / initDensity;
+        float targetScaledDensity = targetDensity * scale;
+        float targetXdpi = baseSize * 1.0f / subunitsDesignSize;
+        int targetScreenWidthDp = (int) (screenWidth / targetDensity);
+        int targetScreenHeightDp = (int) (screenHeight / targetDensity);
+        return new DisplayMetricsInfo(targetDensity, targetDensityDpi, targetScaledDensity,
+                targetXdpi, targetScreenWidthDp, targetScreenHeightDp);
     }
 
     /**
      * 给几大 {@link DisplayMetrics} 赋值
      * @param activity {@link Activity}
+     * @param isDefaultDisplay activity 是否在默认屏幕上, 在副屏上时不修改 {@link Application} 的
+     *            {@link DisplayMetrics}, 避免默认屏幕上的页面使用副屏的 density
      * @param density {@link DisplayMetrics#density}
      * @param densityDpi {@link DisplayMetrics#densityDpi}
      * @param scaledDensity {@link DisplayMetrics#scaledDensity}
      * @param xdpi {@link DisplayMetrics#xdpi}
      */
-    private static void setDensity(Activity activity, float density, int densityDpi,
-            float scaledDensity, float xdpi) {
+    private static void setDensity(Activity activity, boolean isDefaultDisplay, float density,
+            int densityDpi, float scaledDensity, float xdpi) {
         // 兼容 MIUI
         Resources activityResources = activity.getResources();
         DisplayMetrics activityMetricsOnMiui = getMetricsOnMiui(activityResources);
@@ -190,6 +260,9 @@ public final class AutoSize {
                 activityMetricsOnMiui != null ? activityMetricsOnMiui
                         : activityResources.getDisplayMetrics(),
                 density, densityDpi, scaledDensity, xdpi);
+        if (!isDefaultDisplay) {
+            return;
+        }
 
         // 兼容 MIUI
         Resources appResources = AutoSizeConfig.getInstance().getApplication().getResources();
@@ -201,14 +274,20 @@ public final class AutoSize {
     /**
      * 给 {@link Configuration} 赋值
      * @param activity {@link Activity}
+     * @param isDefaultDisplay activity 是否在默认屏幕上, 在副屏上时不修改 {@link Application} 的
+     *            {@link Configuration}
      * @param screenWidthDp {@link Configuration#screenWidthDp}
      * @param screenHeightDp {@link Configuration#screenHeightDp}
      */
-    private static void setScreenSizeDp(Activity activity, int screenWidthDp, int screenHeightDp) {
+    private static void setScreenSizeDp(Activity activity, boolean isDefaultDisplay,
+            int screenWidthDp, int screenHeightDp) {
         UnitsManager unitsManager = AutoSizeConfig.getInstance().getUnitsManager();
         if (unitsManager.isSupportDp() && unitsManager.isSupportScreenSizeDp()) {
             setScreenSizeDp(activity.getResources().getConfiguration(), screenWidthDp,
                     screenHeightDp);
+            if (!isDefaultDisplay) {
+                return;
+            }
 
             Resources appResources = AutoSizeConfig.getInstance().getApplication().getResources();
             setScreenSizeDp(appResources.getConfiguration(), screenWidthDp, screenHeightDp);
@@ -235,7 +314,10 @@ public final class AutoSize {
     }
 
     /**
-     * 赋值
+     * 赋值, 目标 {@link DisplayMetrics} 中已经是目标值时不做任何写入
+     * <p>
+     * 以目标对象当前持有的值作为 "最后一次应用" 的标记, 而不是另外记录一份状态, 这样系统在配置变更时重置了
+     * {@link DisplayMetrics} 也能被正确识别并重新写入
      * @param displayMetrics {@link DisplayMetrics}
      * @param density {@link DisplayMetrics#density}
      * @param densityDpi {@link DisplayMetrics#densityDpi}
@@ -245,41 +327,70 @@ public final class AutoSize {
     static void setDensity(DisplayMetrics displayMetrics, float density, int densityDpi,
             float scaledDensity, float xdpi) {
         UnitsManager unitsManager = AutoSizeConfig.getInstance().getUnitsManager();
-        if (unitsManager.isSupportDp()) {
-            displayMetrics.density = density;
-            displayMetrics.densityDpi = densityDpi;
-        }
-        if (unitsManager.isSupportSp()) {
-            displayMetrics.scaledDensity = scaledDensity;
-        }
+        boolean supportDp = unitsManager.isSupportDp();
+        boolean supportSp = unitsManager.isSupportSp();
+        float targetXdpi;
         switch (unitsManager.getSupportSubunits()) {
         case PT:
-            displayMetrics.xdpi = xdpi * 72f;
+            targetXdpi = xdpi * 72f;
             break;
         case IN:
-            displayMetrics.xdpi = xdpi;
+            targetXdpi = xdpi;
             break;
         case MM:
-            displayMetrics.xdpi = xdpi * 25.4f;
+            targetXdpi = xdpi * 25.4f;
             break;
         case NONE:
         default:
+            targetXdpi = displayMetrics.xdpi;
             break;
         }
+
+        if ((!supportDp || displayMetrics.density == density
+                && displayMetrics.densityDpi == densityDpi)
+                && (!supportSp || displayMetrics.scaledDensity == scaledDensity)
+                && displayMetrics.xdpi == targetXdpi) {
+            sSkippedWriteCount.incrementAndGet();
+            return;
+        }
+
+        if (supportDp) {
+            displayMetrics.density = density;
+            displayMetrics.densityDpi = densityDpi;
+        }
+        if (supportSp) {
+            displayMetrics.scaledDensity = scaledDensity;
+        }
+        displayMetrics.xdpi = targetXdpi;
     }
 
     /**
-     * Configuration赋值
+     * Configuration赋值, 目标 {@link Configuration} 中已经是目标值时不做任何写入
      * @param configuration {@link Configuration}
      * @param screenWidthDp {@link Configuration#screenWidthDp}
      * @param screenHeightDp {@link Configuration#screenHeightDp}
      */
-    private static void setScreenSizeDp(Configuration configuration, int screenWidthDp,
+    static void setScreenSizeDp(Configuration configuration, int screenWidthDp,
             int screenHeightDp) {
+        if (configuration.screenWidthDp == screenWidthDp
+                && configuration.screenHeightDp == screenHeightDp) {
+            sSkippedWriteCount.incrementAndGet();
+            return;
+        }
         configuration.screenWidthDp = screenWidthDp;
         configuration.screenHeightDp = screenHeightDp;
     }
 
+    /**
+     * 因目标 {@link DisplayMetrics} 或 {@link Configuration} 已经是目标值而跳过的写入次数, 可用于评估重复适配的频率
+     * (如在 {@link Activity#getResources()} 中调用 {@link AutoSizeCompat}, 或 {@link Activity} 与 {@link Application}
+     * 共用同一个 {@link DisplayMetrics})
+     * @return 跳过的写入次数
+     */
+    public static long getSkippedWriteCount() {
+        return sSkippedWriteCount.get();
+    }
+
     /**
      * 使用外部三方库的 {@link Activity} 或 {@link android.support.v4.app.Fragment} 的自定义适配参数进行适配
      * @param activity {@link Activity}
@@ -321,13 +432,51 @@ public final class AutoSize {
         autoConvertDensity(activity, designHeightInDp, false);
     }
 
+    /**
+     * 开启了 {@link AutoSizeConfig#isUseWindowBounds()} 并且处于多窗口模式时, 获取按
+     * {@link AutoSizeConfig#getWindowBoundsBucketDp()} 向下取整的窗口尺寸, 拖动分屏分隔条时不会为每个像素都生成一份缓存
+     * @param initDensity activity 所在屏幕的初始 density
+     * @param outSize 长度至少为 2, 依次写入宽、高
+     * @return 没有开启、不在多窗口模式或者获取失败时返回 {@code false}
+     */
+    private static boolean getBucketedWindowSize(AutoSizeConfig config, Activity activity,
+            float initDensity, int[] outSize) {
+        if (!config.isUseWindowBounds() || !WindowUtils.isInMultiWindowMode(activity)
+                || !WindowUtils.getMultiWindowSize(activity, outSize)) {
+            return false;
+        }
+        int bucketPx = Math.max(1, Math.round(config.getWindowBoundsBucketDp() * initDensity));
+        outSize[0] -= outSize[0] % bucketPx;
+        outSize[1] -= outSize[1] % bucketPx;
+        return true;
+    }
+
     /**
      * 取消当前activity的适配
      * @param activity {@link Activity}
      */
     public static void cancelAdapt(Activity activity) {
+        long startNanos = System.nanoTime();
         AutoSizeConfig config = AutoSizeConfig.getInstance();
-        float initXdpi = config.getInitXdpi();
+        config.ensureInitialized(InitMetrics.TRIGGER_ADAPT);
+        DisplayProfile profile = config.getDisplayProfile(activity);
+        float initXdpi = applyInitValues(activity, config, profile);
+        config.getAdaptSnapshotRegistry().put(activity, activity, AdaptSnapshotRegistry.CANCEL,
+                config.getInputGeneration(),
+                profile != null ? profile.getDisplayId() : Display.DEFAULT_DISPLAY,
+                AdaptSnapshotRegistry.FULL_WINDOW);
+        config.getAdaptJournal().onCancel(activity.getClass(), config, profile, initXdpi,
+                startNanos);
+    }
+
+    /**
+     * 恢复为 activity 所在屏幕的系统初始值
+     * @param profile activity 所在副屏的 {@link DisplayProfile}, 在默认屏幕上时为 {@code null}
+     * @return 使用的 xdpi
+     */
+    private static float applyInitValues(Activity activity, AutoSizeConfig config,
+            DisplayProfile profile) {
+        float initXdpi = profile != null ? profile.getInitXdpi() : config.getInitXdpi();
         switch (config.getUnitsManager().getSupportSubunits()) {
         case PT:
             initXdpi = initXdpi / 72f;
@@ -338,18 +487,166 @@ public final class AutoSize {
         default:
             break;
         }
-        setDensity(activity, config.getInitDensity(), config.getInitDensityDpi(),
-                config.getInitScaledDensity(), initXdpi);
-        setScreenSizeDp(activity, config.getInitScreenWidthDp(), config.getInitScreenHeightDp());
+        if (profile != null) {
+            setDensity(activity, false, profile.getInitDensity(), profile.getInitDensityDpi(),
+                    profile.getInitScaledDensity(), initXdpi);
+            setScreenSizeDp(activity, false, profile.getInitScreenWidthDp(),
+                    profile.getInitScreenHeightDp());
+        } else {
+            setDensity(activity, true, config.getInitDensity(), config.getInitDensityDpi(),
+                    config.getInitScaledDensity(), initXdpi);
+            setScreenSizeDp(activity, true, config.getInitScreenWidthDp(),
+                    config.getInitScreenHeightDp());
+        }
+        return initXdpi;
+    }
+
+    /**
+     * 重新应用 target 最后一次适配的结果, 不需要重新计算, 已经是目标值时不做任何写入
+     * <p>
+     * 适配修改的是共享的 {@link DisplayMetrics}, 从其他页面返回时需要恢复, 否则会沿用最后一个适配的页面的 density.
+     * {@link ActivityLifecycleCallbacksImpl} 以及 {@link FragmentLifecycleCallbacksImpl} 已经在 onResume 时自动调用,
+     * 通过 show/hide 或 ViewPager 切换 Fragment 时, 需要在 onHiddenChanged、setUserVisibleHint 中手动调用
+     * <p>
+     * 屏幕尺寸、方向或字体大小变化后, 以及 activity 被移动到其他屏幕后快照会过期, 此时不会应用快照, 需要重新适配
+     * @param target {@link Activity} 或 Fragment
+     * @param activity target 所在的 {@link Activity}
+     * @return target 没有适配过或者快照已经过期时返回 {@code false}
+     */
+    public static boolean restoreAdapt(Object target, Activity activity) {
+        Preconditions.checkNotNull(target, "target == null");
+        Preconditions.checkNotNull(activity, "activity == null");
+        return applySnapshot(target, activity,
+                AutoSizeConfig.getInstance().getInputGeneration());
+    }
+
+    /**
+     * 应用 target 在 generation 下的快照
+     * @param generation {@link AutoSizeConfig#getInputGeneration()}, 或者
+     *            {@link AdaptSnapshotRegistry#ANY_GENERATION} 表示过期的快照也应用
+     * @return 没有对应的快照时返回 {@code false}
+     */
+    static boolean applySnapshot(Object target, Activity activity, int generation) {
+        AutoSizeConfig config = AutoSizeConfig.getInstance();
+        AdaptSnapshotRegistry registry = config.getAdaptSnapshotRegistry();
+        int displayId = DisplayInfoManager.getDisplay(activity).getDisplayId();
+        boolean isDefaultDisplay = displayId == Display.DEFAULT_DISPLAY;
+        long windowKey = AdaptSnapshotRegistry.FULL_WINDOW;
+        if (generation != AdaptSnapshotRegistry.ANY_GENERATION && config.isUseWindowBounds()
+                && WindowUtils.isInMultiWindowMode(activity)) {
+            // 调整窗口尺寸不会改变 generation, 需要比较窗口尺寸
+            DisplayProfile profile = isDefaultDisplay ? null : config.getDisplayProfile(activity);
+            float initDensity = profile != null ? profile.getInitDensity()
+                    : config.getInitDensity();
+            if (getBucketedWindowSize(config, activity, initDensity, sTmpWindowSize)) {
+                windowKey = AdaptSnapshotRegistry.packWindowSize(sTmpWindowSize[0],
+                        sTmpWindowSize[1]);
+            }
+        }
+        DisplayMetricsInfo snapshot = registry.get(target, generation, displayId, windowKey);
+        if (snapshot == null) {
+            return false;
+        }
+        if (snapshot == AdaptSnapshotRegistry.CANCEL) {
+            applyInitValues(activity, config,
+                    isDefaultDisplay ? null : config.getDisplayProfile(activity));
+        } else {
+            setDensity(activity, isDefaultDisplay, snapshot.getDensity(),
+                    snapshot.getDensityDpi(), snapshot.getScaledDensity(), snapshot.getXdpi());
+            setScreenSizeDp(activity, isDefaultDisplay, snapshot.getScreenWidthDp(),
+                    snapshot.getScreenHeightDp());
+        }
+        // 忽略 generation 时不知道快照真正的 generation, 不同步给 activity
+        if (target != activity && generation != AdaptSnapshotRegistry.ANY_GENERATION) {
+            registry.put(activity, activity, snapshot, generation, displayId, windowKey);
+        }
+        return true;
+    }
+
+    /**
+     * 对 activity 以及其中的 Fragment 重新适配, 快照没有过期时直接重新应用, 过期时通过当前的
+     * {@link AutoAdaptStrategy} 重新计算并回调 {@link onReAdaptListener}
+     * <p>
+     * 声明了 configChanges 的 {@link Activity} 被移动到其他屏幕 (桌面模式、投屏) 或者调整窗口尺寸时不会重建, 系统也不一定
+     * 回调 {@link Application} 的 ComponentCallbacks, 需要在 onConfigurationChanged 中调用; 没有声明的会重建, 不需要调用
+     * @param activity {@link Activity}
+     * @return 是否有 target 重新计算
+     */
+    public static boolean reAdapt(Activity activity) {
+        Preconditions.checkNotNull(activity, "activity == null");
+        return AutoSizeConfig.getInstance().reAdaptTargetsOf(activity);
+    }
+
+    /**
+     * 适配副屏上的 {@link android.app.Presentation}, 使用 AndroidAutoSize 初始化时设置的默认适配参数
+     * (AndroidManifest 的 Meta 属性), 需要在 onCreate 中 setContentView 之前调用
+     * <p>
+     * {@link android.app.Presentation} 使用所在副屏的 {@link Context}, {@link Resources} 与 {@link Activity} 以及
+     * {@link Application} 的相互独立, 这里只修改 {@link android.app.Presentation} 自身的 {@link DisplayMetrics}, 计算结果
+     * 放入副屏自己的缓存, 不会影响默认屏幕上的页面
+     * @param presentation {@link android.app.Presentation}, 为了兼容 API 17 以下的设备, 参数类型为 {@link Dialog}
+     * @return 在默认屏幕上时不做任何事, 返回 {@code false}
+     */
+    public static boolean autoConvertDensityOfPresentation(Dialog presentation) {
+        Preconditions.checkNotNull(presentation, "presentation == null");
+        AutoSizeConfig config = AutoSizeConfig.getInstance();
+        config.ensureInitialized(InitMetrics.TRIGGER_ADAPT);
+        Context context = presentation.getContext();
+        DisplayProfile profile = config.getDisplayProfile(context);
+        if (profile == null) {
+            return false;
+        }
+        boolean isBaseOnWidth = config.isBaseOnWidth();
+        float sizeInDp = isBaseOnWidth ? config.getDesignWidthInDp()
+                : config.getDesignHeightInDp();
+        float subunitsDesignSize = isBaseOnWidth ? config.getUnitsManager().getDesignWidth()
+                : config.getUnitsManager().getDesignHeight();
+        subunitsDesignSize = subunitsDesignSize > 0 ? subunitsDesignSize : sizeInDp;
+        int baseSize = isBaseOnWidth ? profile.getScreenWidth() : profile.getScreenHeight();
+
+        long keyHigh = DisplayMetricsInfoCache.packHigh(sizeInDp, subunitsDesignSize);
+        long keyLow = DisplayMetricsInfoCache.packLow(profile.getInitScaledDensity(), baseSize, 0,
+                isBaseOnWidth, config.isUseDeviceSize());
+        DisplayMetricsInfoCache cache = profile.getDisplayMetricsInfoCache();
+        boolean isCacheable = DisplayMetricsInfoCache.isPackable(baseSize, 0);
+        DisplayMetricsInfo displayMetricsInfo = isCacheable ? cache.get(keyHigh, keyLow) : null;
+        if (displayMetricsInfo == null) {
+            displayMetricsInfo = calculateDisplayMetricsInfo(config, sizeInDp,
+                    subunitsDesignSize, baseSize, profile.getScreenWidth(),
+                    profile.getScreenHeight(), profile.getInitDensity(),
+                    profile.getInitScaledDensity());
+            if (isCacheable) {
+                cache.put(keyHigh, keyLow, displayMetricsInfo);
+            }
+        }
+
+        // 兼容 MIUI
+        Resources resources = context.getResources();
+        DisplayMetrics metricsOnMiui = getMetricsOnMiui(resources);
+        setDensity(metricsOnMiui != null ? metricsOnMiui : resources.getDisplayMetrics(),
+                displayMetricsInfo.getDensity(), displayMetricsInfo.getDensityDpi(),
+                displayMetricsInfo.getScaledDensity(), displayMetricsInfo.getXdpi());
+        UnitsManager unitsManager = config.getUnitsManager();
+        if (unitsManager.isSupportDp() && unitsManager.isSupportScreenSizeDp()) {
+            setScreenSizeDp(resources.getConfiguration(), displayMetricsInfo.getScreenWidthDp(),
+                    displayMetricsInfo.getScreenHeightDp());
+        }
+        return true;
     }
 
     /**
      * 当 App 中出现多进程，并且您需要适配所有的进程，就需要在 App 初始化时调用 {@link #initCompatMultiProcess}
      * 建议实现自定义 {@link Application} 并在 {@link Application#onCreate()} 中调用
      * {@link #initCompatMultiProcess}
+     * <p>
+     * 优先通过 {@link #initInProcess(Context)} 直接在当前进程中初始化, 只有失败时才通过 ContentResolver 启动
+     * {@link InitProvider}
      * @param context {@link Context}
      */
     public static void initCompatMultiProcess(Context context) {
+        if (initInProcess(context)) {
+            return;
+        }
         Cursor cursor = null;
         try {
             String uri = "content://" + context.getPackageName() + ".autosize-init-provider";
@@ -360,4 +657,15 @@ public final class AutoSize {
             }
         }
     }
+
+    /**
+     * 在当前进程中直接完成初始化, 默认参数与 {@link InitProvider} 完全相同, 不需要 Binder 通信以及实例化
+     * {@link InitProvider}, 当前进程已经初始化过时不做任何事
+     * @param context {@link Context}
+     * @return 当前进程是否已经完成初始化, 获取不到 {@link Application} 时返回 {@code false}
+     */
+    public static boolean initInProcess(Context context) {
+        Preconditions.checkNotNull(context, "context == null");
+        return InitProvider.initInProcess(context);
+    }
 }
@@ -15,9 +15,6 @@
  */
 package me.jessyan.autosize;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 import android.app.Activity;
 import android.content.res.Configuration;
 import android.content.res.Resources;
@@ -40,8 +37,6 @@ import me.jessyan.autosize.utils.Preconditions;
  * ================================================
  */
 public final class AutoSizeCompat {
-    private static Map<String, DisplayMetricsInfo> mCache = new ConcurrentHashMap<>();
-
     private AutoSizeCompat() {
         throw new IllegalStateException("you can't instantiate me!");
     }
@@ -98,12 +93,14 @@ public final class AutoSizeCompat {
         Preconditions.checkNotNull(resources, "resources == null");
 
         AutoSizeConfig config = AutoSizeConfig.getInstance();
+        config.ensureInitialized(InitMetrics.TRIGGER_ADAPT);
         float subunitsDesignSize = isBaseOnWidth ? config.getUnitsManager().getDesignWidth()
                 : config.getUnitsManager().getDesignHeight();
         subunitsDesignSize = subunitsDesignSize > 0 ? subunitsDesignSize : sizeInDp;
         int baseSize = isBaseOnWidth ? config.getScreenWidth() : config.getScreenHeight();
-        String key = sizeInDp + "|" + subunitsDesignSize + "|" + isBaseOnWidth + "|"
-                + config.isUseDeviceSize() + "|" + config.getInitScaledDensity() + "|" + baseSize;
+        long keyHigh = DisplayMetricsInfoCache.packHigh(sizeInDp, subunitsDesignSize);
+        long keyLow = DisplayMetricsInfoCache.packLow(config.getInitScaledDensity(), baseSize, 0,
+                isBaseOnWidth, config.isUseDeviceSize());
 
         float targetDensity;
         int targetDensityDpi;
@@ -111,7 +108,9 @@ public final class AutoSizeCompat {
         float targetXdpi;
         int targetScreenWidthDp;
         int targetScreenHeightDp;
-        DisplayMetricsInfo displayMetricsInfo = mCache.get(key);
+        DisplayMetricsInfoCache cache = config.getDisplayMetricsInfoCache();
+        boolean isCacheable = DisplayMetricsInfoCache.isPackable(baseSize, 0);
+        DisplayMetricsInfo displayMetricsInfo = isCacheable ? cache.get(keyHigh, keyLow) : null;
         if (displayMetricsInfo == null) {
             // 根据设计图尺寸，重新计算density
             targetDensity = baseSize * 1.0f / sizeInDp;
@@ -124,8 +123,11 @@ public final class AutoSizeCompat {
             targetScreenWidthDp = (int) (config.getScreenWidth() / targetDensity);
             targetScreenHeightDp = (int) (config.getScreenHeight() / targetDensity);
 
-            mCache.put(key, new DisplayMetricsInfo(targetDensity, targetDensityDpi,
-                    targetScaledDensity, targetXdpi, targetScreenWidthDp, targetScreenHeightDp));
+            if (isCacheable) {
+                cache.put(keyHigh, keyLow, new DisplayMetricsInfo(targetDensity,
+                        targetDensityDpi, targetScaledDensity, targetXdpi, targetScreenWidthDp,
+                        targetScreenHeightDp));
+            }
         } else {
             targetDensity = displayMetricsInfo.getDensity();
             targetDensityDpi = displayMetricsInfo.getDensityDpi();
@@ -172,10 +174,12 @@ public final class AutoSizeCompat {
             int screenHeightDp) {
         UnitsManager unitsManager = AutoSizeConfig.getInstance().getUnitsManager();
         if (unitsManager.isSupportDp() && unitsManager.isSupportScreenSizeDp()) {
-            setScreenSizeDp(resources.getConfiguration(), screenWidthDp, screenHeightDp);
+            AutoSize.setScreenSizeDp(resources.getConfiguration(), screenWidthDp,
+                    screenHeightDp);
 
             Resources appResources = AutoSizeConfig.getInstance().getApplication().getResources();
-            setScreenSizeDp(appResources.getConfiguration(), screenWidthDp, screenHeightDp);
+            AutoSize.setScreenSizeDp(appResources.getConfiguration(), screenWidthDp,
+                    screenHeightDp);
         }
     }
 
@@ -198,18 +202,6 @@ public final class AutoSizeCompat {
         return null;
     }
 
-    /**
-     * Configuration赋值
-     * @param configuration {@link Configuration}
-     * @param screenWidthDp {@link Configuration#screenWidthDp}
-     * @param screenHeightDp {@link Configuration#screenHeightDp}
-     */
-    private static void setScreenSizeDp(Configuration configuration, int screenWidthDp,
-            int screenHeightDp) {
-        configuration.screenWidthDp = screenWidthDp;
-        configuration.screenHeightDp = screenHeightDp;
-    }
-
     /**
      * 使用外部三方库的 {@link Activity} 或 {@link android.support.v4.app.Fragment} 的自定义适配参数进行适配
      * @param resources {@link Resources}
@@ -257,6 +249,7 @@ public final class AutoSizeCompat {
      */
     public static void cancelAdapt(Resources resources) {
         AutoSizeConfig config = AutoSizeConfig.getInstance();
+        config.ensureInitialized(InitMetrics.TRIGGER_ADAPT);
         float initXdpi = config.getInitXdpi();
         switch (config.getUnitsManager().getSupportSubunits()) {
         case PT:
@@ -16,6 +16,12 @@
 package me.jessyan.autosize;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import android.app.Activity;
 import android.app.Application;
@@ -23,15 +29,24 @@ import android.content.ComponentCallbacks;
 import android.content.Context;
 import android.content.res.Configuration;
 import android.content.res.Resources;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.support.v4.app.Fragment;
 import android.util.DisplayMetrics;
+import android.util.SparseArray;
+import android.view.Display;
 
 import me.jessyan.autosize.external.ExternalAdaptManager;
 import me.jessyan.autosize.unit.UnitsManager;
 import me.jessyan.autosize.utils.AppUtils;
+import me.jessyan.autosize.utils.AutoSizeExecutors;
+import me.jessyan.autosize.utils.DisplayInfoManager;
 import me.jessyan.autosize.utils.LogUtils;
+import me.jessyan.autosize.utils.ManifestIndex;
 import me.jessyan.autosize.utils.Preconditions;
 import me.jessyan.autosize.utils.ScreenUtils;
+import me.jessyan.autosize.utils.TraceUtils;
 
 /**
  * ================================================
@@ -46,8 +61,14 @@ import me.jessyan.autosize.utils.ScreenUtils;
 public final class AutoSizeConfig {
     private static final String KEY_DESIGN_WIDTH_IN_DP = "design_width_in_dp";
     private static final String KEY_DESIGN_HEIGHT_IN_DP = "design_height_in_dp";
+    /**
+     * 设计图尺寸尚未读取完成时, 适配最多等待的时间
+     */
+    private static final long META_DATA_TIMEOUT_MILLIS = 1000;
+    private static final long DEFAULT_RESIZE_SETTLE_MILLIS = 200;
+    private static final int DEFAULT_WINDOW_BOUNDS_BUCKET_DP = 4;
     private static volatile AutoSizeConfig sInstance;
-    private Application mApplication;
+    private volatile Application mApplication;
     /**
      * 用来管理外部三方库 {@link Activity} 的适配
      */
@@ -56,6 +77,15 @@ public final class AutoSizeConfig {
      * 用来管理 AndroidAutoSize 支持的所有单位, AndroidAutoSize 支持五种单位 (dp、sp、pt、in、mm)
      */
     private UnitsManager mUnitsManager = new UnitsManager();
+    /**
+     * {@link AutoSize} 和 {@link AutoSizeCompat} 共用的 {@link DisplayMetricsInfo} 缓存, 有容量上限
+     */
+    private final DisplayMetricsInfoCache mDisplayMetricsInfoCache = new DisplayMetricsInfoCache();
+    /**
+     * display id -> 副屏的 {@link DisplayProfile}, 默认屏幕的屏幕信息直接保存在下面的字段中
+     */
+    private final SparseArray<DisplayProfile> mDisplayProfiles = new SparseArray<>(2);
+    private final int[] mTmpDisplaySize = new int[2];
     /**
      * 最初的 {@link DisplayMetrics#density}
      */
@@ -83,11 +113,19 @@ public final class AutoSizeConfig {
     /**
      * 设计图上的总宽度, 单位 dp
      */
-    private int mDesignWidthInDp;
+    private volatile int mDesignWidthInDp;
     /**
      * 设计图上的总高度, 单位 dp
      */
-    private int mDesignHeightInDp;
+    private volatile int mDesignHeightInDp;
+    /**
+     * 在后台读取 {@link #mDesignWidthInDp}、{@link #mDesignHeightInDp} 的任务
+     */
+    private volatile Future<?> mMetaDataTask;
+    /**
+     * 第一次需要设计图尺寸时等待后台读取完成所花的时间, 单位 ns, -1 表示还没有使用过设计图尺寸
+     */
+    private volatile long mDesignSizeWaitNanos = -1;
     /**
      * 设备的屏幕总宽度, 单位 px
      */
@@ -137,6 +175,10 @@ public final class AutoSizeConfig {
      * 屏幕方向, {@code true} 为纵向, {@code false} 为横向
      */
     private boolean isVertical;
+    /**
+     * 是否通过 {@link #setVertical(boolean)} 手动设置过屏幕方向, 延迟初始化时不会覆盖手动设置的值
+     */
+    private boolean isVerticalSet;
     /**
      * 是否屏蔽系统字体大小对 AndroidAutoSize 的影响, 如果为 {@code true}, App 内的字体的大小将不会跟随系统设置中字体大小的改变
      * 如果为 {@code false}, 则会跟随系统设置中字体大小的改变, 默认为 {@code false}
@@ -159,6 +201,54 @@ public final class AutoSizeConfig {
      * 屏幕适配监听器，用于监听屏幕适配时的一些事件
      */
     private onAdaptListener mOnAdaptListener;
+    /**
+     * 配置变更后重新适配的监听器
+     */
+    private onReAdaptListener mOnReAdaptListener;
+    /**
+     * 适配的输入参数 (屏幕尺寸、方向、字体大小) 每变化一次加一, 用于判断 {@link AdaptSnapshotRegistry} 中的快照是否过期
+     */
+    private volatile int mInputGeneration;
+    /**
+     * 是否已经完成全部初始化, 延迟初始化模式下由 {@link #ensureInitialized(int)} 完成
+     */
+    private volatile boolean isInitialized;
+    /**
+     * 初始化各个步骤的耗时
+     */
+    private final InitMetrics mInitMetrics = new InitMetrics();
+    /**
+     * 每次适配的耗时统计, 默认关闭
+     */
+    private final AdaptMetrics mAdaptMetrics = new AdaptMetrics(this);
+    /**
+     * 最近几次适配的事件日志, 默认开启
+     */
+    private final AdaptJournal mAdaptJournal = new AdaptJournal();
+    /**
+     * 每个 Activity 以及 Fragment 最后一次应用的 {@link DisplayMetricsInfo}, onResume 时重新应用
+     */
+    private final AdaptSnapshotRegistry mAdaptSnapshotRegistry = new AdaptSnapshotRegistry();
+    /**
+     * 合并同一帧内的多次配置变更
+     */
+    private final ConfigChangeCoalescer mConfigChangeCoalescer = new ConfigChangeCoalescer(this);
+    /**
+     * 持续调整窗口尺寸期间是否保持上一次稳定的 density, 默认关闭
+     */
+    private volatile boolean isHoldDensityWhileResizing;
+    /**
+     * 两次配置变更的间隔小于这个值时认为仍在调整窗口尺寸
+     */
+    private volatile long mResizeSettleMillis = DEFAULT_RESIZE_SETTLE_MILLIS;
+    /**
+     * 分屏、自由窗口等多窗口模式下是否以 {@link Activity} 的窗口尺寸代替屏幕尺寸进行适配, 默认关闭
+     */
+    private volatile boolean isUseWindowBounds;
+    /**
+     * 窗口尺寸向下取整的粒度, 单位 dp, 避免拖动分屏分隔条时生成过多的缓存
+     */
+    private volatile int mWindowBoundsBucketDp = DEFAULT_WINDOW_BOUNDS_BUCKET_DP;
 
     private AutoSizeConfig() {
     }
@@ -232,14 +322,24 @@ public final class AutoSizeConfig {
     }
 
     /**
-     * 是否打印 Log
-     * @param log {@code true} 为打印
+     * 是否打印 Log, 需要更细的控制 (级别、采样) 时请直接使用 {@link LogUtils#setLevel(int)}、
+     * {@link LogUtils#setSampleRate(String, int)}
+     * @param log {@code true} 为打印 {@link LogUtils#DEBUG} 及以上级别的日志
      */
     public AutoSizeConfig setLog(boolean log) {
         LogUtils.setDebug(log);
         return this;
     }
 
+    /**
+     * 是否在 systrace / Perfetto 中输出各个适配阶段的 section (API 18 及以上), 默认关闭, 关闭时几乎没有开销
+     * @param trace {@code true} 为输出
+     */
+    public AutoSizeConfig setTrace(boolean trace) {
+        TraceUtils.setEnabled(trace);
+        return this;
+    }
+
     /**
      * 框架是否已经开启支持自定义 {@link Fragment} 的适配参数
      * @return {@code true} 为支持
@@ -285,6 +385,68 @@ public final class AutoSizeConfig {
         return mUnitsManager;
     }
 
+    /**
+     * {@link DisplayMetricsInfoCache} 用来缓存计算好的 {@link DisplayMetricsInfo}, 可通过它查看缓存的命中、未命中以及淘汰次数
+     * @return {@link #mDisplayMetricsInfoCache}
+     */
+    public DisplayMetricsInfoCache getDisplayMetricsInfoCache() {
+        return mDisplayMetricsInfoCache;
+    }
+
+    /**
+     * 设置 {@link DisplayMetricsInfo} 缓存的容量上限, 默认为 {@link DisplayMetricsInfoCache#DEFAULT_MAX_SIZE}
+     * 频繁拖动自由窗口的场景下每个 baseSize 都会产生一条缓存, 可根据实际情况调整, 修改后会清空当前缓存
+     * @param maxSize 缓存容量, 必须大于 0
+     */
+    public AutoSizeConfig setDisplayMetricsInfoCacheSize(int maxSize) {
+        mDisplayMetricsInfoCache.setMaxSize(maxSize);
+        synchronized (mDisplayProfiles) {
+            for (int i = 0; i < mDisplayProfiles.size(); i++) {
+                mDisplayProfiles.valueAt(i).getDisplayMetricsInfoCache().setMaxSize(maxSize);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 获取 {@link Context} 所在副屏的 {@link DisplayProfile}, 还没有创建或者屏幕尺寸、density、字体大小已经变化时重新创建
+     * @param context {@link Activity} 或 {@link android.app.Presentation} 的 {@link Context}
+     * @return 在默认屏幕上时返回 {@code null}, 此时使用 {@link #getScreenWidth()}、{@link #getInitDensity()} 等
+     */
+    DisplayProfile getDisplayProfile(Context context) {
+        int displayId = DisplayInfoManager.getDisplay(context).getDisplayId();
+        if (displayId == Display.DEFAULT_DISPLAY) {
+            return null;
+        }
+        DisplayInfoManager manager = DisplayInfoManager.getInstance(context);
+        float fontScale = mInitScaledDensity / mInitDensity;
+        synchronized (mDisplayProfiles) {
+            manager.getRealScreenSize(context, mTmpDisplaySize);
+            DisplayProfile profile = mDisplayProfiles.get(displayId);
+            if (profile == null || !profile.matches(mTmpDisplaySize[0], mTmpDisplaySize[1],
+                    manager.getDensity(context), fontScale)) {
+                profile = DisplayProfile.create(context, displayId, fontScale,
+                        mDisplayMetricsInfoCache.getMaxSize());
+                mDisplayProfiles.put(displayId, profile);
+                LogUtils.d(LogUtils.TAG_INIT, "%s", profile);
+            }
+            return profile;
+        }
+    }
+
+    /**
+     * @return 当前所有副屏的 {@link DisplayProfile}
+     */
+    List<DisplayProfile> getDisplayProfiles() {
+        synchronized (mDisplayProfiles) {
+            List<DisplayProfile> profiles = new ArrayList<>(mDisplayProfiles.size());
+            for (int i = 0; i < mDisplayProfiles.size(); i++) {
+                profiles.add(mDisplayProfiles.valueAt(i));
+            }
+            return profiles;
+        }
+    }
+
     /**
      * 返回 {@link #mOnAdaptListener}
      * @return {@link #mOnAdaptListener}
@@ -303,6 +465,99 @@ public final class AutoSizeConfig {
         return this;
     }
 
+    /**
+     * 返回 {@link #mOnReAdaptListener}
+     * @return {@link #mOnReAdaptListener}
+     */
+    public onReAdaptListener getOnReAdaptListener() {
+        return mOnReAdaptListener;
+    }
+
+    /**
+     * 设置配置变更后重新适配的监听器, 声明了 configChanges 的 {@link Activity} 可以在回调中刷新 View, 不需要重建
+     * @param onReAdaptListener {@link onReAdaptListener}
+     */
+    public AutoSizeConfig setOnReAdaptListener(onReAdaptListener onReAdaptListener) {
+        Preconditions.checkNotNull(onReAdaptListener, "onReAdaptListener == null");
+        mOnReAdaptListener = onReAdaptListener;
+        return this;
+    }
+
+    /**
+     * 持续调整窗口尺寸 (如在外接屏上拖动自由窗口) 期间是否保持上一次稳定的 density, 停止调整
+     * {@link #setResizeSettleMillis(long)} 之后才重新计算, 默认关闭
+     * @param hold {@code true} 为保持
+     */
+    public AutoSizeConfig setHoldDensityWhileResizing(boolean hold) {
+        isHoldDensityWhileResizing = hold;
+        return this;
+    }
+
+    public boolean isHoldDensityWhileResizing() {
+        return isHoldDensityWhileResizing;
+    }
+
+    /**
+     * 两次配置变更的间隔小于这个值时认为仍在调整窗口尺寸, 只在开启
+     * {@link #setHoldDensityWhileResizing(boolean)} 时有效, 默认 200ms
+     * @param settleMillis 必须大于 0
+     */
+    public AutoSizeConfig setResizeSettleMillis(long settleMillis) {
+        Preconditions.checkArgument(settleMillis > 0, "settleMillis must be > 0");
+        mResizeSettleMillis = settleMillis;
+        return this;
+    }
+
+    public long getResizeSettleMillis() {
+        return mResizeSettleMillis;
+    }
+
+    /**
+     * 分屏、自由窗口等多窗口模式下是否以 {@link Activity} 的窗口尺寸代替屏幕尺寸进行适配, 全屏时不受影响, 默认关闭
+     * <p>
+     * 只调整窗口尺寸时系统不会回调 {@link android.app.Application} 的 ComponentCallbacks, 声明了 configChanges 的
+     * {@link Activity} 需要在 onConfigurationChanged 中自行调用 {@link AutoSize#autoConvertDensityOfGlobal(Activity)}
+     * 等方法重新适配
+     * @param useWindowBounds {@code true} 为使用窗口尺寸
+     */
+    public AutoSizeConfig setUseWindowBounds(boolean useWindowBounds) {
+        isUseWindowBounds = useWindowBounds;
+        return this;
+    }
+
+    public boolean isUseWindowBounds() {
+        return isUseWindowBounds;
+    }
+
+    /**
+     * 设置窗口尺寸向下取整的粒度, 只在开启 {@link #setUseWindowBounds(boolean)} 时有效, 默认 4dp
+     * @param bucketDp 必须大于 0, 为 1 时相当于每个像素都单独计算
+     */
+    public AutoSizeConfig setWindowBoundsBucketDp(int bucketDp) {
+        Preconditions.checkArgument(bucketDp > 0, "bucketDp must be > 0");
+        mWindowBoundsBucketDp = bucketDp;
+        return this;
+    }
+
+    public int getWindowBoundsBucketDp() {
+        return mWindowBoundsBucketDp;
+    }
+
+    /**
+     * 获取配置变更的合并情况, 如收到的变更次数以及被合并掉的次数
+     * @return {@link ConfigChangeCoalescer}
+     */
+    public ConfigChangeCoalescer getConfigChangeCoalescer() {
+        return mConfigChangeCoalescer;
+    }
+
+    /**
+     * @return 适配的输入参数 (屏幕尺寸、方向、字体大小) 的版本号, 每变化一次加一
+     */
+    public int getInputGeneration() {
+        return mInputGeneration;
+    }
+
     /**
      * 返回 {@link #isBaseOnWidth}
      * @return {@link #isBaseOnWidth}
@@ -380,6 +635,11 @@ public final class AutoSizeConfig {
      * @return {@link #mDesignWidthInDp}
      */
     public int getDesignWidthInDp() {
+        if (mDesignWidthInDp <= 0) {
+            awaitMetaData();
+        } else if (mDesignSizeWaitNanos < 0) {
+            mDesignSizeWaitNanos = 0;
+        }
         Preconditions.checkArgument(mDesignWidthInDp > 0,
                 "you must set " + KEY_DESIGN_WIDTH_IN_DP + "  in your AndroidManifest file");
         return mDesignWidthInDp;
@@ -400,6 +660,11 @@ public final class AutoSizeConfig {
      * @return {@link #mDesignHeightInDp}
      */
     public int getDesignHeightInDp() {
+        if (mDesignHeightInDp <= 0) {
+            awaitMetaData();
+        } else if (mDesignSizeWaitNanos < 0) {
+            mDesignSizeWaitNanos = 0;
+        }
         Preconditions.checkArgument(mDesignHeightInDp > 0,
                 "you must set " + KEY_DESIGN_HEIGHT_IN_DP + "  in your AndroidManifest file");
         return mDesignHeightInDp;
@@ -415,6 +680,40 @@ public final class AutoSizeConfig {
         return this;
     }
 
+    /**
+     * 第一次需要设计图尺寸时 (一般是第一个 {@link Activity} 的适配) 等待后台读取 AndroidManifest 所花的时间
+     * 可用于衡量设计图尺寸的读取对冷启动的影响
+     * @return 单位 ns, 读取已经完成时为 0, 还没有使用过设计图尺寸时为 -1
+     */
+    public long getDesignSizeWaitNanos() {
+        return mDesignSizeWaitNanos;
+    }
+
+    /**
+     * 设计图尺寸还在后台读取时, 最多等待 {@link #META_DATA_TIMEOUT_MILLIS}, 只有确实需要设计图尺寸并且还没有读取完成时才会阻塞
+     */
+    private void awaitMetaData() {
+        Future<?> task = mMetaDataTask;
+        long start = System.nanoTime();
+        if (task != null && !task.isDone()) {
+            try {
+                task.get(META_DATA_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                LogUtils.w(LogUtils.TAG_INIT, "Timed out waiting for %s and %s",
+                        KEY_DESIGN_WIDTH_IN_DP, KEY_DESIGN_HEIGHT_IN_DP);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+        if (mDesignSizeWaitNanos < 0) {
+            mDesignSizeWaitNanos = System.nanoTime() - start;
+            LogUtils.d(LogUtils.TAG_INIT, "waited %dus for design size",
+                    mDesignSizeWaitNanos / 1000);
+        }
+    }
+
     /**
      * 获取 {@link #mInitDensity}
      * @return {@link #mInitDensity}
@@ -477,6 +776,7 @@ public final class AutoSizeConfig {
      */
     public AutoSizeConfig setVertical(boolean vertical) {
         isVertical = vertical;
+        isVerticalSet = true;
         return this;
     }
 
@@ -543,66 +843,282 @@ public final class AutoSizeConfig {
      */
     AutoSizeConfig init(final Application application, boolean isBaseOnWidth,
             AutoAdaptStrategy strategy) {
-        Preconditions.checkArgument(mInitDensity == -1,
-                "AutoSizeConfig#init() can only be called once");
+        return init(application, isBaseOnWidth, strategy, false);
+    }
+
+    /**
+     * 初始化方法只能调用一次, 否则报错
+     * <p>
+     * 延迟初始化模式下只会提交读取设计图尺寸的后台任务并注册 {@link Application.ActivityLifecycleCallbacks},
+     * 获取屏幕尺寸、状态栏高度、Miui 反射等其余工作推迟到第一个 {@link Activity} 的 onActivityCreated、第一次调用
+     * {@link AutoSize}、{@link AutoSizeCompat} 的适配方法或者主线程第一次空闲时执行, 以缩短冷启动关键路径;
+     * 在此之前 {@link #getScreenWidth()}、{@link #getInitDensity()} 等方法返回的都是默认值;
+     * 在此之前 (如 {@link Application#onCreate()} 中) 通过 {@link #setScreenWidth(int)}、{@link #setScreenHeight(int)}、
+     * {@link #setStatusBarHeight(int)}、{@link #setVertical(boolean)} 手动设置的值不会被覆盖
+     * @param application {@link Application}
+     * @param isBaseOnWidth 详情请查看 {@link #isBaseOnWidth} 的注释
+     * @param strategy {@link AutoAdaptStrategy}, 传 {@code null} 则使用
+     *            {@link DefaultAutoAdaptStrategy}
+     * @param lazy 是否使用延迟初始化模式
+     */
+    AutoSizeConfig init(final Application application, boolean isBaseOnWidth,
+            AutoAdaptStrategy strategy, boolean lazy) {
         Preconditions.checkNotNull(application, "application == null");
+        synchronized (this) {
+            Preconditions.checkArgument(mApplication == null,
+                    "AutoSizeConfig#init() can only be called once");
+            this.mApplication = application;
+        }
+        this.isBaseOnWidth = isBaseOnWidth;
+        long initStart = System.nanoTime();
+        mInitMetrics.setLazy(lazy);
 
+        // 可选的启动阶段, 在后台一次性读取 AndroidManifest 中所有的 metadata, 之后的适配直接从内存读取
+        long start = System.nanoTime();
+        if (application.getResources().getBoolean(R.bool.autosize_preload_manifest)) {
+            ManifestIndex.preload(application);
+        }
         // 获取 mDesignWidthInDp、mDesignHeightInDp
         getMetaData(application);
+        mInitMetrics.recordStep(InitMetrics.STEP_META_DATA, start);
 
-        this.mApplication = application;
-        this.isBaseOnWidth = isBaseOnWidth;
+        start = System.nanoTime();
+        mActivityLifecycleCallbacks = new ActivityLifecycleCallbacksImpl(
+                new WrapperAutoAdaptStrategy(
+                        strategy == null ? new DefaultAutoAdaptStrategy() : strategy));
+        application.registerActivityLifecycleCallbacks(mActivityLifecycleCallbacks);
+        mInitMetrics.recordStep(InitMetrics.STEP_LIFECYCLE_CALLBACKS, start);
+
+        if (lazy) {
+            scheduleIdleInit();
+        } else {
+            initDeferred(InitMetrics.TRIGGER_EAGER);
+        }
+        mInitMetrics.setEagerNanos(System.nanoTime() - initStart);
+        LogUtils.d(LogUtils.TAG_INIT, "%s", mInitMetrics);
+        return this;
+    }
+
+    /**
+     * @return 是否已经调用过 init, 延迟初始化模式下此时可能还没有完成全部初始化
+     */
+    boolean isInitCalled() {
+        return mApplication != null;
+    }
+
+    /**
+     * 是否已经完成全部初始化, 延迟初始化模式下第一个 {@link Activity} 创建之前为 {@code false}
+     * @return {@code true} 为已经完成
+     */
+    public boolean isInitialized() {
+        return isInitialized;
+    }
+
+    /**
+     * 获取初始化各个步骤的耗时
+     * @return {@link InitMetrics}
+     */
+    public InitMetrics getInitMetrics() {
+        return mInitMetrics;
+    }
+
+    /**
+     * 获取适配耗时的统计, 默认关闭, 需要调用 {@link AdaptMetrics#setEnabled(boolean)} 开启
+     * @return {@link AdaptMetrics}
+     */
+    public AdaptMetrics getAdaptMetrics() {
+        return mAdaptMetrics;
+    }
+
+    /**
+     * 获取最近几次适配的事件日志, 可以通过 {@link AdaptJournal#export(Context)} 导出后离线分析
+     * @return {@link AdaptJournal}
+     */
+    public AdaptJournal getAdaptJournal() {
+        return mAdaptJournal;
+    }
+
+    AdaptSnapshotRegistry getAdaptSnapshotRegistry() {
+        return mAdaptSnapshotRegistry;
+    }
+
+    /**
+     * 与 {@link #getDesignWidthInDp()} 不同, 不会等待读取 AndroidManifest, 也不会检查是否已经设置
+     * @return {@link #mDesignWidthInDp}, 还没有读取到时为 0
+     */
+    int peekDesignWidthInDp() {
+        return mDesignWidthInDp;
+    }
+
+    /**
+     * 与 {@link #getDesignHeightInDp()} 不同, 不会等待读取 AndroidManifest, 也不会检查是否已经设置
+     * @return {@link #mDesignHeightInDp}, 还没有读取到时为 0
+     */
+    int peekDesignHeightInDp() {
+        return mDesignHeightInDp;
+    }
+
+    /**
+     * 延迟初始化模式下, 在真正需要屏幕信息之前完成剩余的初始化工作, 已经完成时只有一次 volatile 读取
+     * @param trigger 触发时机, 如 {@link InitMetrics#TRIGGER_ACTIVITY_CREATED}
+     */
+    void ensureInitialized(int trigger) {
+        if (!isInitialized && mApplication != null) {
+            initDeferred(trigger);
+        }
+    }
 
-        int[] screenSize = ScreenUtils.getRealScreenSize(application);
+    /**
+     * 在主线程第一次空闲时完成剩余的初始化工作
+     */
+    private void scheduleIdleInit() {
+        final MessageQueue.IdleHandler idleHandler = new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                ensureInitialized(InitMetrics.TRIGGER_IDLE);
+                return false;
+            }
+        };
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            Looper.myQueue().addIdleHandler(idleHandler);
+        } else {
+            new Handler(Looper.getMainLooper()).post(new Runnable() {
+                @Override
+                public void run() {
+                    Looper.myQueue().addIdleHandler(idleHandler);
+                }
+            });
+        }
+    }
+
+    /**
+     * 配置变更后重新获取屏幕尺寸、方向以及字体大小, 任何一个发生变化时 {@link #mInputGeneration} 加一,
+     * 在 onConfigurationChanged 中同步调用, 保证因配置变更重建的 {@link Activity} 使用新的值适配
+     * @param newConfig 最新的 {@link Configuration}
+     */
+    void applyConfigurationChange(Configuration newConfig) {
+        float oldScaledDensity = mInitScaledDensity;
+        boolean oldVertical = isVertical;
+        int oldScreenWidth = mScreenWidth;
+        int oldScreenHeight = mScreenHeight;
+        if (newConfig.fontScale > 0) {
+            mInitScaledDensity = Resources.getSystem().getDisplayMetrics().scaledDensity;
+            LogUtils.d(LogUtils.TAG_INIT, "initScaledDensity = %s on ConfigurationChanged",
+                    mInitScaledDensity);
+        }
+        isVertical = newConfig.orientation == Configuration.ORIENTATION_PORTRAIT;
+        // DisplayListener 的回调与 onConfigurationChanged 的先后顺序不确定, 这里主动使缓存失效
+        DisplayInfoManager.getInstance(mApplication).invalidateAll();
+        int[] screenSize = ScreenUtils.getRealScreenSize(mApplication);
         mScreenWidth = screenSize[0];
         mScreenHeight = screenSize[1];
-        mStatusBarHeight = ScreenUtils.getStatusBarHeight();
-        LogUtils.d("designWidthInDp = " + mDesignWidthInDp + ", designHeightInDp = "
-                + mDesignHeightInDp + ", width = " + mScreenWidth + ", height = " + mScreenHeight
-                + ", statusBarH = " + mStatusBarHeight);
+        LogUtils.d(LogUtils.TAG_INIT, "newConfig: vertical = %s, width = %d, height = %d",
+                isVertical, mScreenWidth, mScreenHeight);
+
+        if (oldScaledDensity != mInitScaledDensity || oldVertical != isVertical
+                || oldScreenWidth != mScreenWidth || oldScreenHeight != mScreenHeight) {
+            mInputGeneration++;
+        }
+    }
+
+    /**
+     * 系统会重置 Resources 中的 DisplayMetrics, 声明了 configChanges 的 Activity 不会重建, 需要重新适配
+     */
+    void reAdaptStartedTargets() {
+        if (mActivityLifecycleCallbacks != null) {
+            mActivityLifecycleCallbacks.reAdaptStartedTargets();
+        }
+    }
+
+    /**
+     * 持续调整窗口尺寸期间, 对所有可见的 target 重新应用最后一次的快照, 不论快照是否过期
+     */
+    void reApplyStartedSnapshots() {
+        if (mActivityLifecycleCallbacks != null) {
+            mActivityLifecycleCallbacks.reApplyStartedSnapshots();
+        }
+    }
+
+    /**
+     * 对 activity 以及其中的 Fragment 重新适配, 由 {@link AutoSize#reAdapt(Activity)} 调用
+     * @return 是否有 target 重新计算
+     */
+    boolean reAdaptTargetsOf(Activity activity) {
+        return mActivityLifecycleCallbacks != null
+                && mActivityLifecycleCallbacks.reAdaptTargetsOf(activity);
+    }
 
+    /**
+     * 获取屏幕尺寸、状态栏高度以及系统的初始 density 等信息, 非延迟模式下在 init 中直接执行
+     * @param trigger 触发时机
+     */
+    private synchronized void initDeferred(int trigger) {
+        if (isInitialized) {
+            return;
+        }
+        final Application application = mApplication;
+        long deferredStart = System.nanoTime();
+
+        // 延迟初始化模式下使用者可能已经在 Application#onCreate 中手动设置过, 与设计图尺寸一样不覆盖手动设置的值
+        long start = deferredStart;
+        if (mScreenWidth <= 0 || mScreenHeight <= 0) {
+            int[] screenSize = ScreenUtils.getRealScreenSize(application);
+            if (mScreenWidth <= 0) {
+                mScreenWidth = screenSize[0];
+            }
+            if (mScreenHeight <= 0) {
+                mScreenHeight = screenSize[1];
+            }
+        }
+        mInitMetrics.recordStep(InitMetrics.STEP_SCREEN_SIZE, start);
+
+        start = System.nanoTime();
+        if (mStatusBarHeight <= 0) {
+            mStatusBarHeight = ScreenUtils.getStatusBarHeight();
+        }
+        mInitMetrics.recordStep(InitMetrics.STEP_STATUS_BAR, start);
+        LogUtils.d(LogUtils.TAG_INIT,
+                "designWidthInDp = %d, designHeightInDp = %d, width = %d, height = %d, "
+                        + "statusBarH = %d",
+                mDesignWidthInDp, mDesignHeightInDp, mScreenWidth, mScreenHeight,
+                mStatusBarHeight);
+
+        start = System.nanoTime();
         final DisplayMetrics displayMetrics = Resources.getSystem().getDisplayMetrics();
         mInitDensity = displayMetrics.density;
         mInitDensityDpi = displayMetrics.densityDpi;
         mInitScaledDensity = displayMetrics.scaledDensity;
         mInitXdpi = displayMetrics.xdpi;
-        LogUtils.d("initDensity = " + mInitDensity + ", initScaledDensity = " + mInitScaledDensity);
+        LogUtils.d(LogUtils.TAG_INIT, "initDensity = %s, initScaledDensity = %s", mInitDensity,
+                mInitScaledDensity);
 
         final Configuration configuration = Resources.getSystem().getConfiguration();
-        isVertical = configuration.orientation == Configuration.ORIENTATION_PORTRAIT;
+        if (!isVerticalSet) {
+            isVertical = configuration.orientation == Configuration.ORIENTATION_PORTRAIT;
+        }
         mInitScreenWidthDp = configuration.screenWidthDp;
         mInitScreenHeightDp = configuration.screenHeightDp;
+        mInitMetrics.recordStep(InitMetrics.STEP_DENSITY, start);
 
+        start = System.nanoTime();
         application.registerComponentCallbacks(new ComponentCallbacks() {
             @Override
             public void onConfigurationChanged(Configuration newConfig) {
                 if (newConfig == null) {
                     return;
                 }
-
-                if (newConfig.fontScale > 0) {
-                    mInitScaledDensity = displayMetrics.scaledDensity;
-                    LogUtils.d("initScaledDensity = " + mInitScaledDensity
-                            + " on ConfigurationChanged");
-                }
-                isVertical = newConfig.orientation == Configuration.ORIENTATION_PORTRAIT;
-                int[] screenSize = ScreenUtils.getRealScreenSize(application);
-                mScreenWidth = screenSize[0];
-                mScreenHeight = screenSize[1];
-                LogUtils.d("newConfig: vertical = " + isVertical + ", width = " + mScreenWidth
-                        + ", height = " + mScreenHeight);
+                applyConfigurationChange(newConfig);
+                // 同一帧内的多次变更合并为一次, 在下一帧中调用 reAdaptStartedTargets
+                mConfigChangeCoalescer.onConfigurationChanged();
             }
 
             @Override
             public void onLowMemory() {
             }
         });
+        mInitMetrics.recordStep(InitMetrics.STEP_COMPONENT_CALLBACKS, start);
 
-        mActivityLifecycleCallbacks = new ActivityLifecycleCallbacksImpl(
-                new WrapperAutoAdaptStrategy(
-                        strategy == null ? new DefaultAutoAdaptStrategy() : strategy));
-        application.registerActivityLifecycleCallbacks(mActivityLifecycleCallbacks);
-
+        start = System.nanoTime();
         if ("MiuiResources".equals(application.getResources().getClass().getSimpleName())
                 || "XResources".equals(application.getResources().getClass().getSimpleName())) {
             isMiui = true;
@@ -613,7 +1129,14 @@ public final class AutoSizeConfig {
                 mTmpMetricsField = null;
             }
         }
-        return this;
+        mInitMetrics.recordStep(InitMetrics.STEP_MIUI_PROBE, start);
+
+        isInitialized = true;
+        mInitMetrics.setDeferred(trigger,
+                trigger == InitMetrics.TRIGGER_EAGER ? 0 : System.nanoTime() - deferredStart);
+        if (trigger != InitMetrics.TRIGGER_EAGER) {
+            LogUtils.d(LogUtils.TAG_INIT, "%s", mInitMetrics);
+        }
     }
 
     /**
@@ -631,20 +1154,35 @@ public final class AutoSizeConfig {
      * @param context {@link Context}
      */
     private void getMetaData(final Context context) {
-        new Thread(new Runnable() {
+        // 使用了 autosize-plugin 时设计图尺寸已经在编译期生成, 直接读取即可, 不需要查询 PackageManager
+        ManifestIndex index = ManifestIndex.get();
+        if (index != null && index.isGenerated()) {
+            Object widthInDp = index.getAppMetaData(KEY_DESIGN_WIDTH_IN_DP);
+            if (widthInDp instanceof Integer && mDesignWidthInDp <= 0) {
+                mDesignWidthInDp = (int) widthInDp;
+            }
+            Object heightInDp = index.getAppMetaData(KEY_DESIGN_HEIGHT_IN_DP);
+            if (heightInDp instanceof Integer && mDesignHeightInDp <= 0) {
+                mDesignHeightInDp = (int) heightInDp;
+            }
+            return;
+        }
+
+        // 在共用的低优先级线程中尽早读取, 读取结果通过 volatile 字段发布, 使用者已经手动设置过的值不会被覆盖
+        mMetaDataTask = AutoSizeExecutors.background().submit(new Runnable() {
             @Override
             public void run() {
                 Object widthInDp = AppUtils.getAppMetaData(context, KEY_DESIGN_WIDTH_IN_DP);
-                if (widthInDp != null) {
+                if (widthInDp != null && mDesignWidthInDp <= 0) {
                     mDesignWidthInDp = (int) widthInDp;
                 }
 
                 Object heightInDp = AppUtils.getAppMetaData(context, KEY_DESIGN_HEIGHT_IN_DP);
-                if (heightInDp != null) {
+                if (heightInDp != null && mDesignHeightInDp <= 0) {
                     mDesignHeightInDp = (int) heightInDp;
                 }
             }
-        }).start();
+        });
     }
 
     /**
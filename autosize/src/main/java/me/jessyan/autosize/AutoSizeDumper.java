@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import android.os.Process;
+
+import me.jessyan.autosize.external.ExternalAdaptManager;
+import me.jessyan.autosize.utils.LogUtils;
+import me.jessyan.autosize.utils.TraceUtils;
+
+/**
+ * 输出 AndroidAutoSize 当前的状态, 由 {@link InitProvider#dump} 调用:
+ * <pre>
+ * adb shell dumpsys activity provider me.jessyan.autosize.InitProvider
+ * </pre>
+ * 支持的参数 (跟在上面的命令之后):
+ * <ul>
+ * <li>metrics on|off|reset: 开启、关闭或清空 {@link AdaptMetrics}</li>
+ * <li>trace on|off: 开启或关闭 {@link TraceUtils}</li>
+ * <li>log on|off: 开启或关闭日志</li>
+ * <li>journal on|off|clear|export: 开启、关闭、清空 {@link AdaptJournal}, 或者导出到应用的 filesDir</li>
+ * </ul>
+ * @author jiwenjie
+ */
+final class AutoSizeDumper {
+    /**
+     * 最多输出多少个最慢的 target
+     */
+    private static final int SLOWEST_TARGET_COUNT = 10;
+    /**
+     * 最多输出多少个最近的适配事件, 全部事件需要通过 "journal export" 导出
+     */
+    private static final int RECENT_EVENT_COUNT = 32;
+
+    private AutoSizeDumper() {
+        throw new IllegalStateException("you can't instantiate me!");
+    }
+
+    static void dump(PrintWriter pw, String[] args) {
+        AutoSizeConfig config = AutoSizeConfig.getInstance();
+        if (args != null && args.length >= 2) {
+            applyCommand(pw, config, args[0], args[1]);
+        }
+
+        pw.println("AndroidAutoSize (pid " + Process.myPid() + ")");
+        if (!config.isInitCalled()) {
+            pw.println("  not initialized");
+            return;
+        }
+        pw.println("  " + config.getInitMetrics());
+
+        pw.println("  Config:");
+        pw.println("    initialized=" + config.isInitialized() + " stop=" + config.isStop()
+                + " baseOnWidth=" + config.isBaseOnWidth() + " designWidthInDp="
+                + config.peekDesignWidthInDp() + " designHeightInDp="
+                + config.peekDesignHeightInDp());
+        pw.println("    screenWidth=" + config.getScreenWidth() + " screenHeight="
+                + config.getScreenHeight() + " useDeviceSize=" + config.isUseDeviceSize()
+                + " vertical=" + config.isVertical() + " excludeFontScale="
+                + config.isExcludeFontScale());
+        pw.println("    initDensity=" + config.getInitDensity() + " initDensityDpi="
+                + config.getInitDensityDpi() + " initScaledDensity="
+                + config.getInitScaledDensity() + " initXdpi=" + config.getInitXdpi());
+        pw.println("    log=" + LogUtils.isDebug() + " trace=" + TraceUtils.isEnabled());
+
+        DisplayMetricsInfoCache cache = config.getDisplayMetricsInfoCache();
+        AdaptMetrics metrics = config.getAdaptMetrics();
+        pw.println("  " + cache + " hitRatio=" + metrics.getCacheHitRatio());
+        for (DisplayProfile profile : config.getDisplayProfiles()) {
+            pw.println("  " + profile);
+        }
+        ExternalAdaptManager externalAdaptManager = config.getExternalAdaptManager();
+        pw.println("  ExternalAdaptManager{run=" + externalAdaptManager.isRun() + ", version="
+                + externalAdaptManager.getVersion() + '}');
+        pw.println("  AdaptSnapshotRegistry{size=" + config.getAdaptSnapshotRegistry().size()
+                + ", inputGeneration=" + config.getInputGeneration() + '}');
+        pw.println("  " + config.getConfigChangeCoalescer() + " holdDensityWhileResizing="
+                + config.isHoldDensityWhileResizing() + " resizeSettleMillis="
+                + config.getResizeSettleMillis());
+        pw.println("  useWindowBounds=" + config.isUseWindowBounds() + " windowBoundsBucketDp="
+                + config.getWindowBoundsBucketDp());
+
+        pw.println("  AdaptMetrics: enabled=" + metrics.isEnabled() + " sampleRate="
+                + metrics.getSampleRate() + " adaptCount=" + metrics.getAdaptCount()
+                + " sampledCount=" + metrics.getSampledCount() + " global="
+                + metrics.getDecisionCount(AdaptMetrics.DECISION_GLOBAL) + " custom="
+                + metrics.getDecisionCount(AdaptMetrics.DECISION_CUSTOM) + " external="
+                + metrics.getDecisionCount(AdaptMetrics.DECISION_EXTERNAL) + " cancel="
+                + metrics.getDecisionCount(AdaptMetrics.DECISION_CANCEL));
+        dumpSlowestTargets(pw, metrics);
+
+        AdaptJournal journal = config.getAdaptJournal();
+        pw.println("  Recent adaptations (newest first, " + journal.size() + " of "
+                + AdaptJournal.CAPACITY + " kept, enabled=" + journal.isEnabled() + "):");
+        journal.dump(pw, "    ", RECENT_EVENT_COUNT);
+    }
+
+    private static void applyCommand(PrintWriter pw, AutoSizeConfig config, String command,
+            String value) {
+        boolean on = "on".equals(value);
+        if ("metrics".equals(command)) {
+            if ("reset".equals(value)) {
+                config.getAdaptMetrics().reset();
+            } else {
+                config.getAdaptMetrics().setEnabled(on);
+            }
+        } else if ("trace".equals(command)) {
+            config.setTrace(on);
+        } else if ("log".equals(command)) {
+            config.setLog(on);
+        } else if ("journal".equals(command)) {
+            AdaptJournal journal = config.getAdaptJournal();
+            if ("clear".equals(value)) {
+                journal.clear();
+            } else if ("export".equals(value)) {
+                try {
+                    pw.println("journal exported to "
+                            + journal.export(config.getApplication()).getAbsolutePath());
+                } catch (IOException e) {
+                    pw.println("journal export failed: " + e);
+                }
+                return;
+            } else {
+                journal.setEnabled(on);
+            }
+        } else {
+            pw.println("Unknown command: " + command + " " + value);
+            return;
+        }
+        pw.println(command + " " + value);
+    }
+
+    /**
+     * 按最大耗时从大到小输出
+     */
+    private static void dumpSlowestTargets(PrintWriter pw, AdaptMetrics metrics) {
+        if (!metrics.isEnabled() && metrics.getSampledCount() == 0) {
+            pw.println("  Slowest targets: metrics disabled, run with \"metrics on\" to enable");
+            return;
+        }
+        List<Map.Entry<Class<?>, AdaptMetrics.ClassMetrics>> entries = new ArrayList<>(
+                metrics.getAllClassMetrics().entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<Class<?>, AdaptMetrics.ClassMetrics>>() {
+            @Override
+            public int compare(Map.Entry<Class<?>, AdaptMetrics.ClassMetrics> lhs,
+                    Map.Entry<Class<?>, AdaptMetrics.ClassMetrics> rhs) {
+                long l = lhs.getValue().getMaxNanos();
+                long r = rhs.getValue().getMaxNanos();
+                return l < r ? 1 : (l == r ? 0 : -1);
+            }
+        });
+        pw.println("  Slowest targets (by max):");
+        for (int i = 0; i < entries.size() && i < SLOWEST_TARGET_COUNT; i++) {
+            Map.Entry<Class<?>, AdaptMetrics.ClassMetrics> entry = entries.get(i);
+            pw.println("    " + entry.getKey().getName() + ' ' + entry.getValue());
+        }
+    }
+}
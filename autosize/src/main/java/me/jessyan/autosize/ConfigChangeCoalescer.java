@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize;
+
+import android.content.res.Configuration;
+import android.view.Choreographer;
+
+/**
+ * 合并短时间内连续的配置变更, 在外接屏上拖动窗口、反复折叠屏幕时, onConfigurationChanged 会在一帧内连续回调多次,
+ * 每次都对可见的 target 重新适配没有意义
+ * <p>
+ * 屏幕尺寸、方向等输入参数由 {@link AutoSizeConfig#applyConfigurationChange(Configuration)} 在 onConfigurationChanged
+ * 中同步更新 (因配置变更重建的 {@link android.app.Activity} 会在下一帧之前创建并适配, 必须使用新的值), 这里只在下一帧的
+ * {@link Choreographer.FrameCallback} 中统一对可见的 target 重新适配一次 (只写入一次 {@link android.util.DisplayMetrics})
+ * <p>
+ * 开启 {@link AutoSizeConfig#setHoldDensityWhileResizing(boolean)} 后, 在持续调整窗口尺寸期间 (两次变更的间隔小于
+ * {@link AutoSizeConfig#setResizeSettleMillis(long)}) 可见的 target 只重新应用上一次的快照, 停止调整后才重新计算,
+ * 避免拖动过程中界面反复缩放
+ * <p>
+ * 只在主线程中使用
+ * @author jiwenjie
+ */
+public final class ConfigChangeCoalescer {
+    private final AutoSizeConfig mConfig;
+    private Choreographer mChoreographer;
+    private boolean isScheduled;
+    /**
+     * 是否是保持 density 期间延迟执行的回调
+     */
+    private boolean isDelayed;
+    /**
+     * 是否有还没有处理的配置变更
+     */
+    private boolean isPending;
+    /**
+     * 最近两次配置变更的间隔是否小于 {@link AutoSizeConfig#getResizeSettleMillis()}, 即是否正在调整窗口尺寸;
+     * 单独一次变更 (旋转屏幕、修改字体大小) 不算, 在下一帧就重新计算
+     */
+    private boolean isResizing;
+    private long mLastEventNanos;
+    private long mEventCount;
+    private long mRecomputeCount;
+    private long mHeldFrameCount;
+
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            isScheduled = false;
+            isDelayed = false;
+            if (!isPending) {
+                return;
+            }
+            if (mConfig.isHoldDensityWhileResizing() && isResizing) {
+                long remainingMillis = mConfig.getResizeSettleMillis()
+                        - (System.nanoTime() - mLastEventNanos) / 1000000;
+                if (remainingMillis > 0) {
+                    // 仍在调整窗口尺寸, 系统已经重置了 DisplayMetrics, 重新应用上一次稳定的 density
+                    mHeldFrameCount++;
+                    mConfig.reApplyStartedSnapshots();
+                    isScheduled = true;
+                    isDelayed = true;
+                    mChoreographer.postFrameCallbackDelayed(this, remainingMillis);
+                    return;
+                }
+            }
+            isPending = false;
+            isResizing = false;
+            mRecomputeCount++;
+            mConfig.reAdaptStartedTargets();
+        }
+    };
+
+    ConfigChangeCoalescer(AutoSizeConfig config) {
+        mConfig = config;
+    }
+
+    /**
+     * 在 {@link AutoSizeConfig#applyConfigurationChange(Configuration)} 之后调用
+     */
+    void onConfigurationChanged() {
+        long nowNanos = System.nanoTime();
+        isResizing = mEventCount > 0
+                && (nowNanos - mLastEventNanos) / 1000000 < mConfig.getResizeSettleMillis();
+        mEventCount++;
+        isPending = true;
+        mLastEventNanos = nowNanos;
+        if (isDelayed) {
+            // 保持 density 期间又收到了变更, 系统再次重置了 DisplayMetrics, 需要在下一帧就重新应用
+            mChoreographer.removeFrameCallback(mFrameCallback);
+            isScheduled = false;
+            isDelayed = false;
+        }
+        if (!isScheduled) {
+            if (mChoreographer == null) {
+                mChoreographer = Choreographer.getInstance();
+            }
+            isScheduled = true;
+            mChoreographer.postFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * @return 收到的配置变更次数
+     */
+    public long getEventCount() {
+        return mEventCount;
+    }
+
+    /**
+     * @return 对可见的 target 重新适配的次数
+     */
+    public long getRecomputeCount() {
+        return mRecomputeCount;
+    }
+
+    /**
+     * @return 被合并掉的配置变更次数
+     */
+    public long getCoalescedCount() {
+        return mEventCount - mRecomputeCount - (isPending ? 1 : 0);
+    }
+
+    /**
+     * @return 调整窗口尺寸期间保持 density 不变的帧数
+     */
+    public long getHeldFrameCount() {
+        return mHeldFrameCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigChangeCoalescer{events=" + mEventCount + ", recomputes=" + mRecomputeCount
+                + ", coalesced=" + getCoalescedCount() + ", heldFrames=" + mHeldFrameCount
+                + ", pending=" + isPending + '}';
+    }
+}
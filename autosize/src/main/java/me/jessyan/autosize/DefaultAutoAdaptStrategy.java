@@ -15,7 +15,8 @@
  */
 package me.jessyan.autosize;
 
-import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import android.app.Activity;
 import android.app.Application;
@@ -30,6 +31,10 @@ import me.jessyan.autosize.utils.LogUtils;
  * ================================================
  * 屏幕适配逻辑策略默认实现类, 可通过 {@link AutoSizeConfig#init(Application, boolean, AutoAdaptStrategy)}
  * 和 {@link AutoSizeConfig#setAutoAdaptStrategy(AutoAdaptStrategy)} 切换策略
+ * <p>
+ * 每个 target 的 {@link Class} 第一次适配时会解析出对应的适配方式 (取消适配、{@link ExternalAdaptInfo}、{@link CustomAdapt}
+ * 或全局参数) 并缓存, 之后同一个 {@link Class} 的适配只需要一次查表; {@link ExternalAdaptManager} 中的适配信息发生变化时缓存会自动失效,
+ * 也可以调用 {@link #invalidateAdaptPlans()} 手动清除
  * Created by JessYan on 2018/8/9 15:57
  * <a href="mailto:jess.yan.effort@gmail.com">Contact me</a>
  * <a href="https://github.com/JessYanCoding">Follow me</a>
@@ -37,43 +42,118 @@ import me.jessyan.autosize.utils.LogUtils;
  * @see AutoAdaptStrategy
  */
 public class DefaultAutoAdaptStrategy implements AutoAdaptStrategy {
+    /**
+     * target 的 {@link Class} -> 解析好的 {@link AdaptPlan}
+     */
+    private final Map<Class<?>, AdaptPlan> mAdaptPlans = new ConcurrentHashMap<>();
+    /**
+     * {@link #mAdaptPlans} 对应的 {@link ExternalAdaptManager#getVersion()}
+     */
+    private volatile int mAdaptPlanVersion;
+
     @Override
     public void applyAdapt(Object target, Activity activity) {
-        // 检查是否开启了三方库的适配模式，只要不主动调用 ExternalAdaptManager 的方法，下面代码不会执行
+        AdaptPlan plan = getAdaptPlan(target.getClass());
+        switch (plan.type) {
+        case AdaptPlan.TYPE_CANCEL:
+            if (LogUtils.isLoggable(LogUtils.WARN)) {
+                LogUtils.w(LogUtils.TAG_STRATEGY, "%s canceled the adaptation!",
+                        target.getClass().getName());
+            }
+            AutoSize.cancelAdapt(activity);
+            break;
+        case AdaptPlan.TYPE_EXTERNAL:
+            if (LogUtils.isLoggable(LogUtils.DEBUG)) {
+                LogUtils.d(LogUtils.TAG_STRATEGY, "%s used %s for adaptation!",
+                        target.getClass().getName(), ExternalAdaptInfo.class.getName());
+            }
+            AutoSize.autoConvertDensityOfExternalAdaptInfo(activity, plan.externalAdaptInfo);
+            break;
+        case AdaptPlan.TYPE_CUSTOM:
+            // 如果 target 实现 CustomAdapt 接口表示该 target 想自定义一些用于适配的参数, 从而改变最终的适配效果
+            AutoSize.autoConvertDensityOfCustomAdapt(activity, (CustomAdapt) target);
+            break;
+        default:
+            AutoSize.autoConvertDensityOfGlobal(activity);
+            break;
+        }
+    }
+
+    /**
+     * 清除所有已经解析好的适配方式, 下次适配时重新解析
+     * {@link ExternalAdaptManager} 中的适配信息发生变化时会自动清除, 无需手动调用
+     */
+    public void invalidateAdaptPlans() {
+        mAdaptPlans.clear();
+    }
+
+    /**
+     * 获取 targetClass 对应的适配方式, 没有缓存或缓存已经过期时重新解析
+     * @param targetClass target 的 {@link Class}
+     * @return {@link AdaptPlan}
+     */
+    AdaptPlan getAdaptPlan(Class<?> targetClass) {
         ExternalAdaptManager externalAdaptManager = AutoSizeConfig.getInstance()
                 .getExternalAdaptManager();
-        Class targetClass = target.getClass();
+        int version = externalAdaptManager.getVersion();
+        if (version != mAdaptPlanVersion) {
+            mAdaptPlans.clear();
+            mAdaptPlanVersion = version;
+        }
+        AdaptPlan plan = mAdaptPlans.get(targetClass);
+        if (plan == null) {
+            plan = resolveAdaptPlan(targetClass, externalAdaptManager);
+            mAdaptPlans.put(targetClass, plan);
+            // 解析期间适配信息发生了变化, 这次解析的结果不能留在缓存中
+            if (externalAdaptManager.getVersion() != version) {
+                mAdaptPlans.remove(targetClass);
+            }
+        }
+        return plan;
+    }
+
+    private static AdaptPlan resolveAdaptPlan(Class<?> targetClass,
+            ExternalAdaptManager externalAdaptManager) {
+        // 检查是否开启了三方库的适配模式，只要不主动调用 ExternalAdaptManager 的方法，下面代码不会执行
         if (externalAdaptManager.isRun()) {
             if (externalAdaptManager.isCancelAdapt(targetClass)) {
-                LogUtils.w(String.format(Locale.ENGLISH, "%s canceled the adaptation!",
-                        targetClass.getName()));
-                AutoSize.cancelAdapt(activity);
-                return;
-            } else {
-                ExternalAdaptInfo info = externalAdaptManager
-                        .getExternalAdaptInfoOfActivity(targetClass);
-                if (info != null) {
-                    LogUtils.d(String.format(Locale.ENGLISH, "%s used %s for adaptation!",
-                            targetClass.getName(), ExternalAdaptInfo.class.getName()));
-                    AutoSize.autoConvertDensityOfExternalAdaptInfo(activity, info);
-                    return;
-                }
+                return AdaptPlan.CANCEL;
+            }
+            ExternalAdaptInfo info = externalAdaptManager
+                    .getExternalAdaptInfoOfActivity(targetClass);
+            if (info != null) {
+                return new AdaptPlan(AdaptPlan.TYPE_EXTERNAL, info);
             }
         }
 
         // 如果 target 实现 CancelAdapt 接口表示放弃适配, 所有的适配效果都将失效
-        if (target instanceof CancelAdapt) {
-            LogUtils.w(String.format(Locale.ENGLISH, "%s canceled the adaptation!",
-                    targetClass.getName()));
-            AutoSize.cancelAdapt(activity);
-            return;
+        if (CancelAdapt.class.isAssignableFrom(targetClass)) {
+            return AdaptPlan.CANCEL;
         }
+        if (CustomAdapt.class.isAssignableFrom(targetClass)) {
+            return AdaptPlan.CUSTOM;
+        }
+        return AdaptPlan.GLOBAL;
+    }
 
-        // 如果 target 实现 CustomAdapt 接口表示该 target 想自定义一些用于适配的参数, 从而改变最终的适配效果
-        if (target instanceof CustomAdapt) {
-            AutoSize.autoConvertDensityOfCustomAdapt(activity, (CustomAdapt) target);
-        } else {
-            AutoSize.autoConvertDensityOfGlobal(activity);
+    /**
+     * 某个 target {@link Class} 解析好的适配方式, 不可变, 日志在输出时才格式化
+     */
+    static final class AdaptPlan {
+        static final int TYPE_GLOBAL = AdaptMetrics.DECISION_GLOBAL;
+        static final int TYPE_CUSTOM = AdaptMetrics.DECISION_CUSTOM;
+        static final int TYPE_EXTERNAL = AdaptMetrics.DECISION_EXTERNAL;
+        static final int TYPE_CANCEL = AdaptMetrics.DECISION_CANCEL;
+        static final AdaptPlan GLOBAL = new AdaptPlan(TYPE_GLOBAL, null);
+        static final AdaptPlan CUSTOM = new AdaptPlan(TYPE_CUSTOM, null);
+        static final AdaptPlan CANCEL = new AdaptPlan(TYPE_CANCEL, null);
+
+        final int type;
+        final ExternalAdaptInfo externalAdaptInfo;
+
+        AdaptPlan(int type, ExternalAdaptInfo externalAdaptInfo) {
+            this.type = type;
+            this.externalAdaptInfo = externalAdaptInfo;
         }
     }
 }
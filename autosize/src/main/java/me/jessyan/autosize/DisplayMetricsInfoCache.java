@@ -0,0 +1,315 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize;
+
+import me.jessyan.autosize.utils.Preconditions;
+
+/**
+ * {@link DisplayMetricsInfo} 缓存, 由 {@link AutoSize} 和 {@link AutoSizeCompat} 共用, 通过
+ * {@link AutoSizeConfig#getDisplayMetricsInfoCache()} 获取
+ * <p>
+ * 以两个 long 组成的原始类型 key 做开放寻址 (线性探测) 查找, 命中缓存时不产生任何对象分配
+ * 缓存有容量上限, 超出上限时淘汰最久未使用 (LRU) 的条目, 避免自由窗口、扩展屏拖动窗口时 baseSize 不断变化导致缓存无限增长
+ * <p>
+ * key 的组成:
+ * <ul>
+ * <li>{@link #packHigh(float, float)}: sizeInDp 与 subunitsDesignSize 的 {@link Float#floatToIntBits(float)}</li>
+ * <li>{@link #packLow(float, int, int, boolean, boolean)}: initScaledDensity 的
+ * {@link Float#floatToIntBits(float)}、baseSize、otherSize、isBaseOnWidth、isUseDeviceSize</li>
+ * </ul>
+ * baseSize、otherSize 各占 15 位, 超出时 (如 AndroidManifest 中的 windowParams 换算后过大) 不能生成唯一的 key,
+ * 调用方需要先通过 {@link #isPackable(int, int)} 判断, 不能打包时跳过缓存直接计算
+ * @author jiwenjie
+ */
+public final class DisplayMetricsInfoCache {
+    /**
+     * 默认的缓存容量
+     */
+    public static final int DEFAULT_MAX_SIZE = 64;
+    private static final int SIZE_MASK = 0x7FFF;
+    private static final int NONE = -1;
+
+    private int mMaxSize;
+    /**
+     * 条目的 key, 每个条目占两个 long, 下标 2i 为 high, 2i + 1 为 low
+     */
+    private long[] mKeys;
+    private DisplayMetricsInfo[] mValues;
+    /**
+     * LRU 双向链表, 链表头 {@link #mHead} 为最近使用的条目, 链表尾 {@link #mTail} 为最久未使用的条目
+     */
+    private int[] mPrev;
+    private int[] mNext;
+    private int mHead;
+    private int mTail;
+    /**
+     * 开放寻址的索引表, 存放条目下标 + 1, 0 代表空槽位
+     */
+    private int[] mTable;
+    private int mSize;
+
+    private long mHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+
+    DisplayMetricsInfoCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    DisplayMetricsInfoCache(int maxSize) {
+        allocate(maxSize);
+    }
+
+    /**
+     * 打包 key 的高位部分
+     * @param sizeInDp 设计图尺寸
+     * @param subunitsDesignSize 副单位的设计图尺寸
+     * @return key 的高位部分
+     */
+    static long packHigh(float sizeInDp, float subunitsDesignSize) {
+        return ((long) Float.floatToIntBits(sizeInDp) << 32)
+                | (Float.floatToIntBits(subunitsDesignSize) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return baseSize、otherSize 是否都在 15 位以内, 否则不同的尺寸会打包出相同的 key
+     */
+    static boolean isPackable(int baseSize, int otherSize) {
+        return baseSize >= 0 && baseSize <= SIZE_MASK && otherSize >= 0 && otherSize <= SIZE_MASK;
+    }
+
+    /**
+     * 打包 key 的低位部分, baseSize、otherSize 各占 15 位, 必须先通过 {@link #isPackable(int, int)} 判断
+     * @param initScaledDensity {@link AutoSizeConfig#getInitScaledDensity()}
+     * @param baseSize 适配基准的屏幕尺寸, 单位 px
+     * @param otherSize 按窗口尺寸适配时另一个方向的窗口尺寸, 单位 px, 用于计算 screenWidthDp、screenHeightDp;
+     *            按屏幕尺寸适配时为 0
+     * @param isBaseOnWidth 是否以宽度为基准
+     * @param isUseDeviceSize {@link AutoSizeConfig#isUseDeviceSize()}
+     * @return key 的低位部分
+     */
+    static long packLow(float initScaledDensity, int baseSize, int otherSize,
+            boolean isBaseOnWidth, boolean isUseDeviceSize) {
+        return ((long) Float.floatToIntBits(initScaledDensity) << 32)
+                | ((long) (baseSize & SIZE_MASK) << 17) | ((long) (otherSize & SIZE_MASK) << 2)
+                | (isBaseOnWidth ? 1 : 0) | (isUseDeviceSize ? 2 : 0);
+    }
+
+    synchronized DisplayMetricsInfo get(long high, long low) {
+        int entry = find(high, low);
+        if (entry == NONE) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+        moveToHead(entry);
+        return mValues[entry];
+    }
+
+    synchronized void put(long high, long low, DisplayMetricsInfo value) {
+        int entry = find(high, low);
+        if (entry != NONE) {
+            mValues[entry] = value;
+            moveToHead(entry);
+            return;
+        }
+
+        if (mSize < mMaxSize) {
+            entry = mSize++;
+        } else {
+            // 已达容量上限, 复用最久未使用的条目
+            entry = mTail;
+            removeFromTable(entry);
+            unlink(entry);
+            mEvictionCount++;
+        }
+        mKeys[entry << 1] = high;
+        mKeys[(entry << 1) + 1] = low;
+        mValues[entry] = value;
+        insertIntoTable(entry);
+        linkAtHead(entry);
+    }
+
+    /**
+     * 修改缓存容量, 修改后会清空当前缓存
+     * @param maxSize 缓存容量, 必须大于 0
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        Preconditions.checkArgument(maxSize > 0, "maxSize must be > 0");
+        allocate(maxSize);
+    }
+
+    public synchronized int getMaxSize() {
+        return mMaxSize;
+    }
+
+    public synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * 清空缓存, 统计数据不受影响
+     */
+    public synchronized void clear() {
+        allocate(mMaxSize);
+    }
+
+    /**
+     * 命中次数
+     */
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * 未命中次数
+     */
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * 因超出容量上限而被淘汰的条目数
+     */
+    public synchronized long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * 重置命中、未命中、淘汰的统计数据
+     */
+    public synchronized void resetStats() {
+        mHitCount = 0;
+        mMissCount = 0;
+        mEvictionCount = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DisplayMetricsInfoCache{" + "size=" + mSize + ", maxSize=" + mMaxSize
+                + ", hitCount=" + mHitCount + ", missCount=" + mMissCount + ", evictionCount="
+                + mEvictionCount + '}';
+    }
+
+    private void allocate(int maxSize) {
+        mMaxSize = maxSize;
+        mKeys = new long[maxSize << 1];
+        mValues = new DisplayMetricsInfo[maxSize];
+        mPrev = new int[maxSize];
+        mNext = new int[maxSize];
+        mHead = NONE;
+        mTail = NONE;
+        // 索引表的负载因子保持在 0.5 以下, 保证探测链足够短
+        int tableSize = Integer.highestOneBit(maxSize) << 2;
+        mTable = new int[tableSize];
+        mSize = 0;
+    }
+
+    private int find(long high, long low) {
+        int mask = mTable.length - 1;
+        int index = hash(high, low) & mask;
+        int slot;
+        while ((slot = mTable[index]) != 0) {
+            int entry = slot - 1;
+            if (mKeys[entry << 1] == high && mKeys[(entry << 1) + 1] == low) {
+                return entry;
+            }
+            index = (index + 1) & mask;
+        }
+        return NONE;
+    }
+
+    private void insertIntoTable(int entry) {
+        int mask = mTable.length - 1;
+        int index = hash(mKeys[entry << 1], mKeys[(entry << 1) + 1]) & mask;
+        while (mTable[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        mTable[index] = entry + 1;
+    }
+
+    /**
+     * 从索引表中删除条目, 使用后移删除 (backward shift deletion) 保证线性探测链不断开, 无需墓碑标记
+     */
+    private void removeFromTable(int entry) {
+        int mask = mTable.length - 1;
+        int hole = hash(mKeys[entry << 1], mKeys[(entry << 1) + 1]) & mask;
+        while (mTable[hole] != entry + 1) {
+            hole = (hole + 1) & mask;
+        }
+
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            int slot = mTable[index];
+            if (slot == 0) {
+                break;
+            }
+            int other = slot - 1;
+            int ideal = hash(mKeys[other << 1], mKeys[(other << 1) + 1]) & mask;
+            // ideal 循环地落在 (hole, index] 区间内时, 该条目不能前移
+            boolean stay = hole <= index ? (hole < ideal && ideal <= index)
+                    : (hole < ideal || ideal <= index);
+            if (!stay) {
+                mTable[hole] = slot;
+                hole = index;
+            }
+        }
+        mTable[hole] = 0;
+    }
+
+    private void moveToHead(int entry) {
+        if (mHead != entry) {
+            unlink(entry);
+            linkAtHead(entry);
+        }
+    }
+
+    private void linkAtHead(int entry) {
+        mPrev[entry] = NONE;
+        mNext[entry] = mHead;
+        if (mHead != NONE) {
+            mPrev[mHead] = entry;
+        }
+        mHead = entry;
+        if (mTail == NONE) {
+            mTail = entry;
+        }
+    }
+
+    private void unlink(int entry) {
+        int prev = mPrev[entry];
+        int next = mNext[entry];
+        if (prev != NONE) {
+            mNext[prev] = next;
+        } else {
+            mHead = next;
+        }
+        if (next != NONE) {
+            mPrev[next] = prev;
+        } else {
+            mTail = prev;
+        }
+    }
+
+    private static int hash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L + low;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
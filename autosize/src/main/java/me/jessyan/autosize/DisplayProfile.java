@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize;
+
+import android.content.Context;
+import android.util.DisplayMetrics;
+
+import me.jessyan.autosize.utils.DisplayInfoManager;
+
+/**
+ * 副屏 (手机+扩展屏、桌面模式、投屏以及 {@link android.app.Presentation} 所在的屏幕) 的适配输入: 屏幕尺寸、系统的初始
+ * density 以及独立的 {@link DisplayMetricsInfoCache}
+ * <p>
+ * 默认屏幕的输入仍然由 {@link AutoSizeConfig} 保存, 副屏上计算的 {@link DisplayMetricsInfo} 只放入副屏自己的缓存,
+ * 不会挤掉默认屏幕缓存中的记录; 副屏没有状态栏的概念, 屏幕尺寸始终使用真实尺寸, 不受
+ * {@link AutoSizeConfig#isUseDeviceSize()} 影响
+ * <p>
+ * 不可变, 屏幕尺寸、density 或者字体大小变化后由 {@link AutoSizeConfig} 整体替换
+ * @author jiwenjie
+ */
+final class DisplayProfile {
+    private final int mDisplayId;
+    private final int mScreenWidth;
+    private final int mScreenHeight;
+    private final float mInitDensity;
+    private final int mInitDensityDpi;
+    private final float mInitScaledDensity;
+    private final float mInitXdpi;
+    private final int mInitScreenWidthDp;
+    private final int mInitScreenHeightDp;
+    private final DisplayMetricsInfoCache mDisplayMetricsInfoCache;
+
+    private DisplayProfile(int displayId, int screenWidth, int screenHeight,
+            DisplayMetrics metrics, float fontScale, int cacheSize) {
+        mDisplayId = displayId;
+        mScreenWidth = screenWidth;
+        mScreenHeight = screenHeight;
+        mInitDensity = metrics.density;
+        mInitDensityDpi = metrics.densityDpi;
+        // Display 的 DisplayMetrics 不包含字体缩放, 字体大小是全局的, 与默认屏幕保持一致
+        mInitScaledDensity = metrics.density * fontScale;
+        mInitXdpi = metrics.xdpi;
+        mInitScreenWidthDp = (int) (metrics.widthPixels / metrics.density);
+        mInitScreenHeightDp = (int) (metrics.heightPixels / metrics.density);
+        mDisplayMetricsInfoCache = new DisplayMetricsInfoCache(cacheSize);
+    }
+
+    /**
+     * @param context 所在屏幕为副屏的 {@link Context}
+     * @param displayId 副屏的 display id
+     * @param fontScale 默认屏幕的 scaledDensity / density
+     * @param cacheSize {@link DisplayMetricsInfoCache} 的容量
+     */
+    static DisplayProfile create(Context context, int displayId, float fontScale,
+            int cacheSize) {
+        DisplayInfoManager manager = DisplayInfoManager.getInstance(context);
+        int[] size = new int[2];
+        manager.getRealScreenSize(context, size);
+        // 使用整个副屏真实的 DisplayMetrics, 分屏、自由窗口下单个窗口的尺寸不能作为整个屏幕的初始值
+        DisplayMetrics metrics = new DisplayMetrics();
+        manager.getRealDisplayMetrics(context, metrics);
+        return new DisplayProfile(displayId, size[0], size[1], metrics, fontScale, cacheSize);
+    }
+
+    /**
+     * @return 屏幕尺寸、density 以及字体缩放是否都与当前的一致, 不一致时需要重新创建
+     */
+    boolean matches(int screenWidth, int screenHeight, float density, float fontScale) {
+        return mScreenWidth == screenWidth && mScreenHeight == screenHeight
+                && mInitDensity == density && mInitScaledDensity == density * fontScale;
+    }
+
+    int getDisplayId() {
+        return mDisplayId;
+    }
+
+    int getScreenWidth() {
+        return mScreenWidth;
+    }
+
+    int getScreenHeight() {
+        return mScreenHeight;
+    }
+
+    float getInitDensity() {
+        return mInitDensity;
+    }
+
+    int getInitDensityDpi() {
+        return mInitDensityDpi;
+    }
+
+    float getInitScaledDensity() {
+        return mInitScaledDensity;
+    }
+
+    float getInitXdpi() {
+        return mInitXdpi;
+    }
+
+    int getInitScreenWidthDp() {
+        return mInitScreenWidthDp;
+    }
+
+    int getInitScreenHeightDp() {
+        return mInitScreenHeightDp;
+    }
+
+    DisplayMetricsInfoCache getDisplayMetricsInfoCache() {
+        return mDisplayMetricsInfoCache;
+    }
+
+    @Override
+    public String toString() {
+        return "DisplayProfile{displayId=" + mDisplayId + ", width=" + mScreenWidth + ", height="
+                + mScreenHeight + ", initDensity=" + mInitDensity + ", initScaledDensity="
+                + mInitScaledDensity + ", " + mDisplayMetricsInfoCache + '}';
+    }
+}
@@ -19,6 +19,8 @@ import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentManager;
 
+import me.jessyan.autosize.utils.TraceUtils;
+
 /**
  * ================================================<p>
  * {@link FragmentLifecycleCallbacksImpl} 可用来代替在 BaseFragment 中加入适配代码的传统方式
@@ -43,10 +45,27 @@ public class FragmentLifecycleCallbacksImpl extends FragmentManager.FragmentLife
     @Override
     public void onFragmentCreated(FragmentManager fm, Fragment f, Bundle savedInstanceState) {
         if (mAutoAdaptStrategy != null) {
-            mAutoAdaptStrategy.applyAdapt(f, f.getActivity());
+            boolean traced = TraceUtils.beginSection(TraceUtils.STAGE_FRAGMENT_CREATED,
+                    f.getClass());
+            try {
+                mAutoAdaptStrategy.applyAdapt(f, f.getActivity());
+            } finally {
+                TraceUtils.endSection(traced);
+            }
         }
     }
 
+    @Override
+    public void onFragmentResumed(FragmentManager fm, Fragment f) {
+        // 从回退栈返回时, 恢复该 Fragment 适配的 density
+        ActivityLifecycleCallbacksImpl.restoreOrReAdapt(mAutoAdaptStrategy, f, f.getActivity());
+    }
+
+    @Override
+    public void onFragmentDestroyed(FragmentManager fm, Fragment f) {
+        AutoSizeConfig.getInstance().getAdaptSnapshotRegistry().remove(f);
+    }
+
     /**
      * 设置屏幕适配逻辑策略类
      * @param autoAdaptStrategy {@link AutoAdaptStrategy}
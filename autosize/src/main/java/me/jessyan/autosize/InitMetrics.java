@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize;
+
+import android.app.Activity;
+
+/**
+ * AndroidAutoSize 初始化各个步骤的耗时, 单位 ns, 可通过 {@link AutoSizeConfig#getInitMetrics()} 获取并上报到启动监控中
+ * <p>
+ * {@link #getEagerNanos()} 是 {@link AutoSizeConfig#init(android.app.Application)} 在调用线程 (一般是
+ * {@link InitProvider#onCreate()} 所在的主线程) 上的耗时, 也就是 AndroidAutoSize 在冷启动关键路径上的耗时;
+ * 延迟初始化模式下, 其余步骤的耗时计入 {@link #getDeferredNanos()}
+ * @author jiwenjie
+ */
+public final class InitMetrics {
+    /**
+     * 提交后台读取 AndroidManifest 中设计图尺寸的任务
+     */
+    public static final int STEP_META_DATA = 0;
+    /**
+     * 注册 {@link android.app.Application.ActivityLifecycleCallbacks}
+     */
+    public static final int STEP_LIFECYCLE_CALLBACKS = 1;
+    /**
+     * 获取屏幕真实尺寸
+     */
+    public static final int STEP_SCREEN_SIZE = 2;
+    /**
+     * 获取状态栏高度
+     */
+    public static final int STEP_STATUS_BAR = 3;
+    /**
+     * 读取系统的 density、scaledDensity 以及 screenWidthDp 等初始值
+     */
+    public static final int STEP_DENSITY = 4;
+    /**
+     * 注册 {@link android.content.ComponentCallbacks}
+     */
+    public static final int STEP_COMPONENT_CALLBACKS = 5;
+    /**
+     * 判断是否是 Miui 并反射获取 mTmpMetrics 字段
+     */
+    public static final int STEP_MIUI_PROBE = 6;
+    private static final int STEP_COUNT = 7;
+    private static final String[] STEP_NAMES = { "metaData", "lifecycleCallbacks", "screenSize",
+            "statusBar", "density", "componentCallbacks", "miuiProbe" };
+
+    /**
+     * 还没有完成初始化
+     */
+    public static final int TRIGGER_NONE = 0;
+    /**
+     * 非延迟模式, 在 init 中直接完成
+     */
+    public static final int TRIGGER_EAGER = 1;
+    /**
+     * 延迟模式, 由第一个 {@link Activity} 的 onActivityCreated 触发
+     */
+    public static final int TRIGGER_ACTIVITY_CREATED = 2;
+    /**
+     * 延迟模式, 由主线程空闲时的 IdleHandler 触发
+     */
+    public static final int TRIGGER_IDLE = 3;
+    /**
+     * 延迟模式, 由 {@link AutoSize}、{@link AutoSizeCompat} 的适配方法触发
+     */
+    public static final int TRIGGER_ADAPT = 4;
+    private static final String[] TRIGGER_NAMES = { "none", "eager", "activityCreated", "idle",
+            "adapt" };
+
+    private final long[] mStepNanos = new long[STEP_COUNT];
+    private volatile boolean isLazy;
+    private volatile long mEagerNanos;
+    private volatile long mDeferredNanos;
+    private volatile int mTrigger = TRIGGER_NONE;
+
+    InitMetrics() {
+    }
+
+    void setLazy(boolean lazy) {
+        isLazy = lazy;
+    }
+
+    void recordStep(int step, long startNanos) {
+        mStepNanos[step] = System.nanoTime() - startNanos;
+    }
+
+    void setEagerNanos(long nanos) {
+        mEagerNanos = nanos;
+    }
+
+    void setDeferred(int trigger, long nanos) {
+        mDeferredNanos = nanos;
+        mTrigger = trigger;
+    }
+
+    /**
+     * @return 是否使用了延迟初始化模式
+     */
+    public boolean isLazy() {
+        return isLazy;
+    }
+
+    /**
+     * @param step 步骤, 如 {@link #STEP_SCREEN_SIZE}
+     * @return 该步骤的耗时, 单位 ns, 还没有执行时为 0
+     */
+    public long getStepNanos(int step) {
+        return mStepNanos[step];
+    }
+
+    /**
+     * @return 在 init 调用线程上的总耗时, 单位 ns
+     */
+    public long getEagerNanos() {
+        return mEagerNanos;
+    }
+
+    /**
+     * @return 延迟初始化的总耗时, 单位 ns, 非延迟模式下为 0
+     */
+    public long getDeferredNanos() {
+        return mDeferredNanos;
+    }
+
+    /**
+     * @return 完成初始化的时机, 如 {@link #TRIGGER_ACTIVITY_CREATED}
+     */
+    public int getTrigger() {
+        return mTrigger;
+    }
+
+    /**
+     * @return 是否已经完成全部初始化
+     */
+    public boolean isInitialized() {
+        return mTrigger != TRIGGER_NONE;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("InitMetrics{lazy=").append(isLazy)
+                .append(", trigger=").append(TRIGGER_NAMES[mTrigger])
+                .append(", eagerUs=").append(mEagerNanos / 1000)
+                .append(", deferredUs=").append(mDeferredNanos / 1000);
+        for (int i = 0; i < STEP_COUNT; i++) {
+            sb.append(", ").append(STEP_NAMES[i]).append("Us=").append(mStepNanos[i] / 1000);
+        }
+        return sb.append(", designSizeWaitUs=")
+                .append(AutoSizeConfig.getInstance().getDesignSizeWaitNanos() / 1000).append('}')
+                .toString();
+    }
+}
@@ -15,6 +15,9 @@
  */
 package me.jessyan.autosize;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
 import android.app.Application;
 import android.content.ContentProvider;
 import android.content.ContentValues;
@@ -35,15 +38,37 @@ import me.jessyan.autosize.utils.AutoSizeUtils;
 public class InitProvider extends ContentProvider {
     @Override
     public boolean onCreate() {
-        Context context = getContext();
-        if (context != null) {
-            Application application = (Application) context.getApplicationContext();
+        initInProcess(getContext());
+        return true;
+    }
+
+    /**
+     * 使用与 {@link InitProvider} 完全相同的默认参数在当前进程中完成初始化, 当前进程已经初始化过时直接返回
+     * @param context {@link Context}
+     * @return 当前进程是否已经完成初始化 (包括之前已经完成的情况), 拿不到 {@link Application} 时返回 {@code false}
+     */
+    static boolean initInProcess(Context context) {
+        if (context == null) {
+            return false;
+        }
+        synchronized (AutoSizeConfig.class) {
+            AutoSizeConfig config = AutoSizeConfig.getInstance();
+            if (config.isInitCalled()) {
+                return true;
+            }
+            Context appContext = context.getApplicationContext();
+            Application application = appContext instanceof Application
+                    ? (Application) appContext : AutoSizeUtils.getApplicationByReflect();
             if (application == null) {
-                application = AutoSizeUtils.getApplicationByReflect();
+                return false;
             }
-            AutoSizeConfig.getInstance().setLog(true).init(application).setUseDeviceSize(false);
+            // 延迟初始化模式下只注册 ActivityLifecycleCallbacks, 其余工作推迟到第一个 Activity 创建或主线程空闲时
+            boolean lazy = application.getResources().getBoolean(R.bool.autosize_lazy_init);
+            // 日志默认关闭, 调试时可在 res/values 中把 autosize_log 覆盖为 true
+            boolean log = application.getResources().getBoolean(R.bool.autosize_log);
+            config.setLog(log).init(application, true, null, lazy).setUseDeviceSize(false);
+            return true;
         }
-        return true;
     }
 
     @Override
@@ -71,4 +96,16 @@ public class InitProvider extends ContentProvider {
     public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
         return 0;
     }
+
+    /**
+     * 输出 AndroidAutoSize 当前的状态, 详见 {@link AutoSizeDumper}
+     * <pre>
+     * adb shell dumpsys activity provider me.jessyan.autosize.InitProvider
+     * adb shell dumpsys activity provider me.jessyan.autosize.InitProvider metrics on
+     * </pre>
+     */
+    @Override
+    public void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        AutoSizeDumper.dump(writer, args);
+    }
 }
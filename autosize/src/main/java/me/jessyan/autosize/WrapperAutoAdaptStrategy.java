@@ -17,6 +17,8 @@ package me.jessyan.autosize;
 
 import android.app.Activity;
 
+import me.jessyan.autosize.utils.TraceUtils;
+
 /**
  * ================================================
  * {@link AutoAdaptStrategy} 的包装者, 用于给 {@link AutoAdaptStrategy} 的实现类增加一些额外的职责
@@ -35,21 +37,69 @@ public class WrapperAutoAdaptStrategy implements AutoAdaptStrategy {
 
     @Override
     public void applyAdapt(Object target, Activity activity) {
+        AutoSizeConfig config = AutoSizeConfig.getInstance();
         // stop之后，还原成设备自有参数
-        if (AutoSizeConfig.getInstance().isStop()) {
+        if (config.isStop()) {
             AutoSize.cancelAdapt(activity);
             return;
         }
 
-        onAdaptListener onAdaptListener = AutoSizeConfig.getInstance().getOnAdaptListener();
+        Class<?> targetClass = target.getClass();
+        onAdaptListener onAdaptListener = config.getOnAdaptListener();
         if (onAdaptListener != null) {
-            onAdaptListener.onAdaptBefore(target, activity);
+            boolean traced = TraceUtils.beginSection(TraceUtils.STAGE_LISTENER, targetClass);
+            try {
+                onAdaptListener.onAdaptBefore(target, activity);
+            } finally {
+                TraceUtils.endSection(traced);
+            }
         }
         if (mAutoAdaptStrategy != null) {
-            mAutoAdaptStrategy.applyAdapt(target, activity);
+            boolean traced = TraceUtils.beginSection(TraceUtils.STAGE_STRATEGY, targetClass);
+            try {
+                AdaptMetrics metrics = config.getAdaptMetrics();
+                AdaptJournal journal = config.getAdaptJournal();
+                boolean isMetricsRecorded = metrics.shouldRecord();
+                if (isMetricsRecorded || journal.isEnabled()) {
+                    journal.beginAdapt();
+                    long start = System.nanoTime();
+                    mAutoAdaptStrategy.applyAdapt(target, activity);
+                    long nanos = System.nanoTime() - start;
+                    int decision = getDecision(targetClass);
+                    if (isMetricsRecorded) {
+                        metrics.record(targetClass, decision, nanos);
+                    }
+                    journal.endAdapt(targetClass, decision, start, nanos);
+                } else {
+                    mAutoAdaptStrategy.applyAdapt(target, activity);
+                }
+                if (target != activity) {
+                    // Fragment 的适配也是修改 Activity 的 Resources, 记录下来以便重新显示时恢复
+                    config.getAdaptSnapshotRegistry().copy(target, activity);
+                }
+            } finally {
+                TraceUtils.endSection(traced);
+            }
         }
         if (onAdaptListener != null) {
-            onAdaptListener.onAdaptAfter(target, activity);
+            boolean traced = TraceUtils.beginSection(TraceUtils.STAGE_LISTENER, targetClass);
+            try {
+                onAdaptListener.onAdaptAfter(target, activity);
+            } finally {
+                TraceUtils.endSection(traced);
+            }
+        }
+    }
+
+    /**
+     * 获取 target 的适配方式, 只有 {@link DefaultAutoAdaptStrategy} 能够得知, 此时已经缓存, 只需要一次查表
+     * @param targetClass target 的 {@link Class}
+     * @return {@link AdaptMetrics#DECISION_GLOBAL} 等
+     */
+    private int getDecision(Class<?> targetClass) {
+        if (mAutoAdaptStrategy instanceof DefaultAutoAdaptStrategy) {
+            return ((DefaultAutoAdaptStrategy) mAutoAdaptStrategy).getAdaptPlan(targetClass).type;
         }
+        return AdaptMetrics.DECISION_UNKNOWN;
     }
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize.external;
+
+import android.app.Activity;
+import android.support.v4.app.Fragment;
+
+/**
+ * 编译期生成的适配信息查询表, 由 autosize-compiler 根据 {@code @AutoSizeDesign}、{@code @AutoSizeCancel} 注解生成
+ * <p>
+ * 应用模块生成的 {@link ExternalAdaptManager#GENERATED_REGISTRY} 会在第一次适配时自动加载, 其他模块可以通过
+ * {@code autosize.registryClass} 参数指定生成的类名, 再调用 {@link ExternalAdaptManager#addAdaptRegistry(AdaptRegistry)}
+ * 注册
+ * @author jiwenjie
+ */
+public interface AdaptRegistry {
+    /**
+     * @param className {@link Activity}、{@link Fragment} 的类名, {@link Class#getName()}
+     * @return 是否被 {@code @AutoSizeCancel} 注解
+     */
+    boolean isCancelAdapt(String className);
+
+    /**
+     * @param className {@link Activity}、{@link Fragment} 的类名, {@link Class#getName()}
+     * @return {@code @AutoSizeDesign} 注解对应的 {@link ExternalAdaptInfo}, 没有注解时返回 {@code null}
+     */
+    ExternalAdaptInfo getExternalAdaptInfo(String className);
+}
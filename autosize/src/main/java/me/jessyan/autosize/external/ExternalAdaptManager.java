@@ -15,10 +15,12 @@
  */
 package me.jessyan.autosize.external;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import android.app.Activity;
 import android.support.v4.app.Fragment;
@@ -34,15 +36,39 @@ import me.jessyan.autosize.utils.Preconditions;
  * {@link ExternalAdaptManager} 就是专门用来处理这个问题, 项目初始化时把对应的三方库 {@link Activity} 传入
  * {@link ExternalAdaptManager} 即可
  * <p>
+ * 内部以 {@link Class} 本身为 key, 每次修改都会复制出新的不可变表再整体发布 (copy-on-write), 所以每次适配时的查询不需要加锁,
+ * 也不需要调用 {@link Class#getCanonicalName()}; 需要注册大量 {@link Activity} 时请使用
+ * {@link #addExternalAdaptInfoOfActivities(Map)}、{@link #addCancelAdaptOfActivities(Collection)} 一次性发布
+ * <p>
+ * 也可以使用 autosize-compiler 在编译期根据 {@code @AutoSizeDesign}、{@code @AutoSizeCancel} 注解生成 {@link AdaptRegistry},
+ * 应用模块生成的 {@link #GENERATED_REGISTRY} 会在第一次查询时自动加载, 运行时添加的适配信息优先于 {@link AdaptRegistry}
+ * (包括其中 {@code @AutoSizeCancel} 取消适配的类)
+ * <p>
  * Created by JessYan on 2018/8/10 14:40
  * <a href="mailto:jess.yan.effort@gmail.com">Contact me</a>
  * <a href="https://github.com/JessYanCoding">Follow me</a>
  * ================================================
  */
 public class ExternalAdaptManager {
-    private List<String> mCancelAdaptList;
-    private Map<String, ExternalAdaptInfo> mExternalAdaptInfos;
-    private boolean isRun;
+    /**
+     * autosize-compiler 在应用模块中默认生成的 {@link AdaptRegistry} 类名
+     */
+    public static final String GENERATED_REGISTRY =
+            "me.jessyan.autosize.generated.AutoSizeAdaptRegistry";
+    private static final AdaptRegistry[] EMPTY_REGISTRIES = new AdaptRegistry[0];
+    private volatile Set<Class<?>> mCancelAdaptSet = Collections.emptySet();
+    private volatile Map<Class<?>, ExternalAdaptInfo> mExternalAdaptInfos = Collections.emptyMap();
+    /**
+     * 每次修改都会加一, 用于让依赖这些适配信息的缓存失效
+     */
+    private volatile int mVersion;
+    private volatile AdaptRegistry[] mAdaptRegistries = EMPTY_REGISTRIES;
+    private volatile boolean isGeneratedRegistryLoaded;
+    private volatile boolean isRun;
+    /**
+     * 是否已经通过 {@link #setRun(boolean)} 手动设置过运行状态, 设置过之后加载 {@link #GENERATED_REGISTRY} 时不再修改
+     */
+    private volatile boolean isRunSet;
 
     /**
      * 将需要提供自定义适配参数的三方库 {@link Activity} 添加进来 (但不局限于三方库), 即可让该 {@link Activity} 根据自己提供的适配参数进行适配
@@ -62,16 +88,28 @@ public class ExternalAdaptManager {
      * @param targetClass {@link Activity} class, {@link Fragment} class
      * @param info {@link ExternalAdaptInfo} 适配参数
      */
-    public synchronized ExternalAdaptManager addExternalAdaptInfoOfActivity(Class<?> targetClass,
+    public ExternalAdaptManager addExternalAdaptInfoOfActivity(Class<?> targetClass,
             ExternalAdaptInfo info) {
         Preconditions.checkNotNull(targetClass, "targetClass == null");
-        if (!isRun) {
-            isRun = true;
-        }
-        if (mExternalAdaptInfos == null) {
-            mExternalAdaptInfos = new HashMap<>(16);
+        return addExternalAdaptInfoOfActivities(
+                Collections.<Class<?>, ExternalAdaptInfo> singletonMap(targetClass, info));
+    }
+
+    /**
+     * 批量添加需要提供自定义适配参数的 {@link Activity}, 所有的适配信息只会发布一次
+     * @param infos {@link Activity} class、{@link Fragment} class -> {@link ExternalAdaptInfo} 适配参数
+     * @see #addExternalAdaptInfoOfActivity(Class, ExternalAdaptInfo)
+     */
+    public synchronized ExternalAdaptManager addExternalAdaptInfoOfActivities(
+            Map<Class<?>, ExternalAdaptInfo> infos) {
+        Preconditions.checkNotNull(infos, "infos == null");
+        Map<Class<?>, ExternalAdaptInfo> newInfos = new HashMap<>(mExternalAdaptInfos);
+        for (Map.Entry<Class<?>, ExternalAdaptInfo> entry : infos.entrySet()) {
+            Preconditions.checkNotNull(entry.getKey(), "targetClass == null");
+            newInfos.put(entry.getKey(), entry.getValue());
         }
-        mExternalAdaptInfos.put(targetClass.getCanonicalName(), info);
+        mExternalAdaptInfos = Collections.unmodifiableMap(newInfos);
+        publish();
         return this;
     }
 
@@ -82,29 +120,52 @@ public class ExternalAdaptManager {
      * {@link ExternalAdaptManager#addCancelAdaptOfActivity(Class)#addCancelAdaptOfActivity(Class)}
      * @param targetClass {@link Activity} class, {@link Fragment} class
      */
-    public synchronized ExternalAdaptManager addCancelAdaptOfActivity(Class<?> targetClass) {
+    public ExternalAdaptManager addCancelAdaptOfActivity(Class<?> targetClass) {
         Preconditions.checkNotNull(targetClass, "targetClass == null");
-        if (!isRun) {
-            isRun = true;
-        }
-        if (mCancelAdaptList == null) {
-            mCancelAdaptList = new ArrayList<>();
+        return addCancelAdaptOfActivities(Collections.<Class<?>> singleton(targetClass));
+    }
+
+    /**
+     * 批量添加不需要适配的 {@link Activity}, 只会发布一次
+     * @param targetClasses {@link Activity} class, {@link Fragment} class
+     * @see #addCancelAdaptOfActivity(Class)
+     */
+    public synchronized ExternalAdaptManager addCancelAdaptOfActivities(
+            Collection<? extends Class<?>> targetClasses) {
+        Preconditions.checkNotNull(targetClasses, "targetClasses == null");
+        Set<Class<?>> newSet = new HashSet<>(mCancelAdaptSet);
+        for (Class<?> targetClass : targetClasses) {
+            Preconditions.checkNotNull(targetClass, "targetClass == null");
+            newSet.add(targetClass);
         }
-        mCancelAdaptList.add(targetClass.getCanonicalName());
+        mCancelAdaptSet = Collections.unmodifiableSet(newSet);
+        publish();
         return this;
     }
 
     /**
      * 这个 {@link Activity} 是否存在在取消适配的列表中, 如果在, 则该 {@link Activity} 适配失效
+     * <p>
+     * 运行时通过 {@link #addExternalAdaptInfoOfActivity(Class, ExternalAdaptInfo)} 添加了适配参数的类, 不再受
+     * {@link AdaptRegistry} 中 {@code @AutoSizeCancel} 的影响
      * @param targetClass {@link Activity} class, {@link Fragment} class
      * @return {@code true} 为存在, {@code false} 为不存在
      */
-    public synchronized boolean isCancelAdapt(Class<?> targetClass) {
+    public boolean isCancelAdapt(Class<?> targetClass) {
         Preconditions.checkNotNull(targetClass, "targetClass == null");
-        if (mCancelAdaptList == null) {
+        if (mCancelAdaptSet.contains(targetClass)) {
+            return true;
+        }
+        if (mExternalAdaptInfos.containsKey(targetClass)) {
             return false;
         }
-        return mCancelAdaptList.contains(targetClass.getCanonicalName());
+        AdaptRegistry[] registries = getAdaptRegistries();
+        for (AdaptRegistry registry : registries) {
+            if (registry.isCancelAdapt(targetClass.getName())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -112,12 +173,39 @@ public class ExternalAdaptManager {
      * @param targetClass {@link Activity} class, {@link Fragment} class
      * @return 如果返回 {@code null} 则说明该 {@link Activity} 没有提供自定义的适配参数
      */
-    public synchronized ExternalAdaptInfo getExternalAdaptInfoOfActivity(Class<?> targetClass) {
+    public ExternalAdaptInfo getExternalAdaptInfoOfActivity(Class<?> targetClass) {
         Preconditions.checkNotNull(targetClass, "targetClass == null");
-        if (mExternalAdaptInfos == null) {
-            return null;
+        ExternalAdaptInfo info = mExternalAdaptInfos.get(targetClass);
+        if (info != null) {
+            return info;
+        }
+        AdaptRegistry[] registries = getAdaptRegistries();
+        for (AdaptRegistry registry : registries) {
+            info = registry.getExternalAdaptInfo(targetClass.getName());
+            if (info != null) {
+                return info;
+            }
         }
-        return mExternalAdaptInfos.get(targetClass.getCanonicalName());
+        return null;
+    }
+
+    /**
+     * 添加编译期生成的 {@link AdaptRegistry}, 应用模块默认生成的 {@link #GENERATED_REGISTRY} 会自动加载, 无需手动添加
+     * @param registry {@link AdaptRegistry}
+     */
+    public synchronized ExternalAdaptManager addAdaptRegistry(AdaptRegistry registry) {
+        Preconditions.checkNotNull(registry, "registry == null");
+        appendAdaptRegistry(registry);
+        publish();
+        return this;
+    }
+
+    /**
+     * 适配信息的版本号, 每次添加适配信息或者修改运行状态都会改变, 可用于判断根据这些信息计算出的缓存是否已经过期
+     * @return 版本号
+     */
+    public int getVersion() {
+        return mVersion;
     }
 
     /**
@@ -125,6 +213,9 @@ public class ExternalAdaptManager {
      * @return {@code true} 为已经启动, {@code false} 为没有启动
      */
     public boolean isRun() {
+        if (!isGeneratedRegistryLoaded) {
+            loadGeneratedRegistry();
+        }
         return isRun;
     }
 
@@ -132,8 +223,60 @@ public class ExternalAdaptManager {
      * 设置管理器的运行状态
      * @param run {@code true} 为让管理器启动运行, {@code false} 为让管理器停止运行
      */
-    public ExternalAdaptManager setRun(boolean run) {
-        isRun = run;
+    public synchronized ExternalAdaptManager setRun(boolean run) {
+        isRunSet = true;
+        if (isRun != run) {
+            isRun = run;
+            mVersion++;
+        }
         return this;
     }
+
+    private AdaptRegistry[] getAdaptRegistries() {
+        if (!isGeneratedRegistryLoaded) {
+            loadGeneratedRegistry();
+        }
+        return mAdaptRegistries;
+    }
+
+    /**
+     * 加载 {@link #GENERATED_REGISTRY}, 只会尝试一次, 没有使用 autosize-compiler 时什么也不做
+     * <p>
+     * 加载是在第一次查询时才发生的, 可能晚于 {@link #setRun(boolean)}, 所以只有在运行状态没有被手动设置过时才会启动管理器,
+     * 不会覆盖使用者的选择
+     */
+    private synchronized void loadGeneratedRegistry() {
+        if (isGeneratedRegistryLoaded) {
+            return;
+        }
+        isGeneratedRegistryLoaded = true;
+        try {
+            Class<?> registryClass = Class.forName(GENERATED_REGISTRY, true,
+                    ExternalAdaptManager.class.getClassLoader());
+            appendAdaptRegistry((AdaptRegistry) registryClass.newInstance());
+            if (!isRunSet) {
+                isRun = true;
+            }
+            mVersion++;
+        } catch (ClassNotFoundException ignored) {
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void appendAdaptRegistry(AdaptRegistry registry) {
+        AdaptRegistry[] registries = mAdaptRegistries;
+        AdaptRegistry[] newRegistries = new AdaptRegistry[registries.length + 1];
+        System.arraycopy(registries, 0, newRegistries, 0, registries.length);
+        newRegistries[registries.length] = registry;
+        mAdaptRegistries = newRegistries;
+    }
+
+    /**
+     * 新的适配信息已经发布, 启动管理器并更新版本号
+     */
+    private void publish() {
+        isRun = true;
+        mVersion++;
+    }
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 JessYan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.jessyan.autosize;
+
+import android.app.Activity;
+import android.support.v4.app.Fragment;
+
+/**
+ * 配置变更 (屏幕旋转、窗口尺寸或字体大小变化等) 后, AndroidAutoSize 会对可见的 target 重新适配, 声明了 configChanges
+ * 的 {@link Activity} 不会被重建, 可以通过这个监听器刷新 View
+ * <p>
+ * 只有 target 的适配参数真正发生变化时才会回调, 通过 {@link AutoSizeConfig#setOnReAdaptListener(onReAdaptListener)}
+ * 设置
+ * @author jiwenjie
+ */
+public interface onReAdaptListener {
+    /**
+     * 在重新适配后调用, 此时 {@link android.util.DisplayMetrics} 已经是新的值, 可以在这里重新 inflate 或 requestLayout
+     * @param target 重新适配的对象 (可能是 {@link Activity} 或者 {@link Fragment})
+     * @param activity target 所在的 {@link Activity}
+     */
+    void onReAdapt(Object target, Activity activity);
+}
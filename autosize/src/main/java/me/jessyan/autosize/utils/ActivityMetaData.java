@@ -0,0 +1,36 @@
+package me.jessyan.autosize.utils;
+
+/**
+ * 解析好的 Activity metadata，由 {@link AppUtils#getActivityMetaData(android.app.Activity)} 按
+ * ComponentName 缓存，避免每次适配都通过 PackageManager 查询并重新解析 windowParams 字符串
+ * @author jiwenjie
+ */
+public final class ActivityMetaData {
+    /**
+     * 是否保持原有尺寸适配，Activity 未配置 autosize_intrinsic 时取 Application 的配置
+     */
+    private final boolean keepIntrinsic;
+    /**
+     * Activity 的 windowParams 覆盖 Application 的 windowParams 后的结果，都未配置时为 {@code null}
+     */
+    private final WindowParams windowParams;
+
+    public ActivityMetaData(boolean keepIntrinsic, WindowParams windowParams) {
+        this.keepIntrinsic = keepIntrinsic;
+        this.windowParams = windowParams;
+    }
+
+    public boolean isKeepIntrinsic() {
+        return keepIntrinsic;
+    }
+
+    public WindowParams getWindowParams() {
+        return windowParams;
+    }
+
+    @Override
+    public String toString() {
+        return "ActivityMetaData{" + "keepIntrinsic=" + keepIntrinsic + ", windowParams="
+                + windowParams + '}';
+    }
+}
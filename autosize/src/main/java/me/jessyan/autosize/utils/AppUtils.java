@@ -1,21 +1,37 @@
 package me.jessyan.autosize.utils;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import android.app.Activity;
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.pm.ActivityInfo;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Bundle;
 import android.view.Display;
-import android.view.WindowManager;
 
 /**
  * 应用组件级的工具，如获取AndroidManifest中的Application或Activity的metadata
  * @author jiwenjie
  */
 public class AppUtils {
-    private static final String KEY_AUTOSIZE_INTRINSIC = "autosize_intrinsic";
+    private static final String KEY_AUTOSIZE_INTRINSIC = ManifestIndex.KEY_AUTOSIZE_INTRINSIC;
+    private static final String KEY_WINDOW_PARAMS = ManifestIndex.KEY_WINDOW_PARAMS;
     private static Boolean sAppResizable;
     private static WindowParams sAppWindowParams;
+    private static boolean sAppWindowParamsLoaded;
+    /**
+     * 按 ComponentName 缓存解析好的 Activity metadata，在进程的整个生命周期内有效 (应用更新时系统会杀死进程, 不需要监听)
+     */
+    private static final Map<ComponentName, ActivityMetaData> sActivityMetaDataCache =
+            new ConcurrentHashMap<>();
+    private static final String CLASS_SMT_PC_UTILS = "android.app.SmtPCUtils";
+    private static volatile boolean sIsValidExtDisplayIdResolved;
+    private static Method sIsValidExtDisplayId;
 
     /**
      * 大屏应用适配参数(TNT...)
@@ -25,27 +41,7 @@ public class AppUtils {
      * @return new int[] {width, height}
      */
     public static WindowParams getActivityWindowParams(Activity activity) {
-        WindowParams appWindowParams = getAppWindowParams(activity.getApplicationContext());
-        Object obj = getActivityMetaData(activity, "windowParams");
-        if (obj != null) {
-            String windowParams = (String) obj;
-            LogUtils.d("AppUtils-windowParams = " + windowParams + ", activity = "
-                    + activity.getClass().getName());
-            String[] params = windowParams.split(",");
-
-            if (params.length > 0) {
-                try {
-                    int[] ret = new int[8];
-                    for (int i = 0; i < params.length; i++) {
-                        ret[i] = Integer.parseInt(params[i]);
-                    }
-                    return WindowParams.combineWindowParams(appWindowParams.getOriginParams(), ret);
-                } catch (NumberFormatException ex) {
-                    LogUtils.d("Exception in AppUtils - getActivityWindowParams()");
-                }
-            }
-        }
-        return appWindowParams;
+        return getActivityMetaData(activity).getWindowParams();
     }
 
     /**
@@ -56,34 +52,132 @@ public class AppUtils {
      * @return new int[] {width, height}
      */
     public static WindowParams getAppWindowParams(Context appCtx) {
-        if (sAppWindowParams != null) {
+        if (sAppWindowParamsLoaded) {
             return sAppWindowParams;
         }
 
-        Object obj = getAppMetaData(appCtx, "windowParams");
+        Object obj = getAppMetaData(appCtx, KEY_WINDOW_PARAMS);
         if (obj != null) {
             String windowParams = (String) obj;
-            LogUtils.d("AppUtils-windowParams=" + windowParams);
-            String[] params = windowParams.split(",");
-
-            if (params.length > 0) {
-                try {
-                    int[] tempParams = new int[8];
-                    for (int i = 0; i < params.length; i++) {
-                        tempParams[i] = Integer.parseInt(params[i]);
-                    }
+            LogUtils.d(LogUtils.TAG_MANIFEST, "AppUtils-windowParams=%s", windowParams);
+            int[] params = parseWindowParams(windowParams);
+            if (params != null) {
+                sAppWindowParams = WindowParams.createWindowParams(params);
+            } else {
+                LogUtils.w(LogUtils.TAG_MANIFEST, "Exception in AppUtils - getAppWindowParams()");
+            }
+        }
+        sAppWindowParamsLoaded = true;
+        return sAppWindowParams;
+    }
 
-                    sAppWindowParams = WindowParams.createWindowParams(tempParams);
-                    return sAppWindowParams;
-                } catch (NumberFormatException ex) {
-                    LogUtils.d("Exception in AppUtils - getAppWindowParams()");
+    /**
+     * 获取解析好的 Activity metadata，同一个 ComponentName 只通过 PackageManager 查询一次，之后直接从内存读取
+     * 如果 {@link ManifestIndex} 已经建立完成，则完全不需要查询 PackageManager
+     * @param activity
+     * @return {@link ActivityMetaData}
+     */
+    public static ActivityMetaData getActivityMetaData(Activity activity) {
+        ComponentName componentName = activity.getComponentName();
+        ActivityMetaData metaData = sActivityMetaDataCache.get(componentName);
+        if (metaData == null) {
+            boolean traced = TraceUtils.beginSection(TraceUtils.STAGE_META_DATA,
+                    activity.getClass());
+            try {
+                ManifestIndex index = ManifestIndex.get();
+                if (index != null) {
+                    metaData = index.getResolvedActivityMetaData(componentName.getClassName());
+                }
+                if (metaData == null) {
+                    metaData = loadActivityMetaData(activity);
                 }
+                sActivityMetaDataCache.put(componentName, metaData);
+            } finally {
+                TraceUtils.endSection(traced);
             }
         }
-        return null;
+        return metaData;
+    }
+
+    /**
+     * 清空 metadata 缓存, 缓存在进程的整个生命周期内有效; 通过 PackageManager#setComponentEnabledSetting 等方式
+     * 在运行时改变了组件的 metadata 时需要手动调用
+     */
+    public static void invalidateMetaDataCache() {
+        sActivityMetaDataCache.clear();
+        sAppResizable = null;
+        sAppWindowParams = null;
+        sAppWindowParamsLoaded = false;
+        ManifestIndex.clear();
+    }
+
+    private static ActivityMetaData loadActivityMetaData(Activity activity) {
+        Bundle metaData = null;
+        try {
+            ActivityInfo info = activity.getPackageManager()
+                    .getActivityInfo(activity.getComponentName(), PackageManager.GET_META_DATA);
+            metaData = info.metaData;
+        } catch (PackageManager.NameNotFoundException e) {
+            e.printStackTrace();
+        }
+
+        boolean keepIntrinsic = isAppResizable(activity);
+        if (metaData != null && metaData.containsKey(KEY_AUTOSIZE_INTRINSIC)) {
+            keepIntrinsic = (boolean) metaData.get(KEY_AUTOSIZE_INTRINSIC);
+        }
+
+        WindowParams appWindowParams = getAppWindowParams(activity.getApplicationContext());
+        WindowParams windowParams = appWindowParams;
+        if (metaData != null && metaData.containsKey(KEY_WINDOW_PARAMS)) {
+            String value = (String) metaData.get(KEY_WINDOW_PARAMS);
+            LogUtils.d(LogUtils.TAG_MANIFEST, "AppUtils-windowParams = %s, activity = %s", value,
+                    activity.getClass().getName());
+            int[] params = parseWindowParams(value);
+            if (params != null) {
+                windowParams = WindowParams.combineWindowParams(
+                        appWindowParams != null ? appWindowParams.getOriginParams() : new int[0],
+                        params);
+            } else {
+                LogUtils.w(LogUtils.TAG_MANIFEST,
+                        "Exception in AppUtils - getActivityWindowParams()");
+            }
+        }
+        return new ActivityMetaData(keepIntrinsic, windowParams);
+    }
+
+    /**
+     * 解析 "version,windowMode,resizeMode,forceResizeMode,width,height,minWidth,minHeight" 格式的字符串
+     * @param windowParams
+     * @return 解析失败返回 {@code null}
+     */
+    static int[] parseWindowParams(String windowParams) {
+        if (windowParams == null) {
+            return null;
+        }
+        String[] params = windowParams.split(",");
+        if (params.length == 0) {
+            return null;
+        }
+        try {
+            int[] ret = new int[Math.max(params.length, 8)];
+            for (int i = 0; i < params.length; i++) {
+                ret[i] = Integer.parseInt(params[i].trim());
+            }
+            return ret;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
     }
 
     public static Object getActivityMetaData(Activity activity, String key) {
+        ManifestIndex index = ManifestIndex.get();
+        if (index != null && ManifestIndex.isIndexedActivityKey(key)) {
+            String className = activity.getComponentName().getClassName();
+            if (index.containsActivity(className)) {
+                return index.getActivityMetaData(className, key);
+            }
+        }
+
         ActivityInfo info = null;
         try {
             info = activity.getPackageManager().getActivityInfo(activity.getComponentName(),
@@ -99,6 +193,11 @@ public class AppUtils {
     }
 
     public static Object getAppMetaData(Context appCtx, String key) {
+        ManifestIndex index = ManifestIndex.get();
+        if (index != null && index.containsAppKey(key)) {
+            return index.getAppMetaData(key);
+        }
+
         ApplicationInfo info = null;
         try {
             info = appCtx.getPackageManager().getApplicationInfo(appCtx.getPackageName(),
@@ -119,24 +218,48 @@ public class AppUtils {
      * @return
      */
     public static boolean keepIntrinsic(Activity activity) {
+        return getActivityMetaData(activity).isKeepIntrinsic();
+    }
+
+    private static boolean isAppResizable(Context context) {
         if (sAppResizable == null) {
-            Object obj = getAppMetaData(activity, KEY_AUTOSIZE_INTRINSIC);
+            Object obj = getAppMetaData(context, KEY_AUTOSIZE_INTRINSIC);
             sAppResizable = obj != null && (boolean) obj;
         }
-        Object resizable = getActivityMetaData(activity, KEY_AUTOSIZE_INTRINSIC);
-        if (resizable != null) {
-            return resizable != null ? (boolean) resizable : sAppResizable;
-        }
         return sAppResizable;
     }
 
     /**
-     * 判断是不是手机+扩展屏模式
+     * 判断是不是运行在扩展屏 (手机+扩展屏、大屏的 Pad 和 TV) 上, 结果按 display id 由 {@link DisplayInfoManager} 缓存,
+     * 每次适配都会调用, 不能每次都反射调用 SmtPCUtils
      * @param context
      * @return
      */
     public static boolean isExtDevice(Context context) {
-        return getExtDisplayId(context) > 0;
+        return DisplayInfoManager.getInstance(context).isExtDisplay(context);
+    }
+
+    /**
+     * 判断 display 是不是扩展屏, 不做缓存
+     * <p>
+     * 系统提供了私有接口 SmtPCUtils#isValidExtDisplayId() 时以它的结果为准, 大屏的 Pad 和 TV 只能通过它判断;
+     * 否则只要不是默认屏幕并且不是私有的虚拟屏幕 (如录屏、应用自己创建的 VirtualDisplay) 就认为是扩展屏
+     */
+    static boolean resolveExtDisplay(Display display) {
+        int displayId = display.getDisplayId();
+        Method isValidExtDisplayId = getIsValidExtDisplayIdMethod();
+        if (isValidExtDisplayId != null) {
+            try {
+                return (Boolean) isValidExtDisplayId.invoke(null, displayId);
+            } catch (Exception e) {
+                LogUtils.w(LogUtils.TAG_ADAPT, "SmtPCUtils.isValidExtDisplayId failed: %s", e);
+            }
+        }
+        if (displayId == Display.DEFAULT_DISPLAY) {
+            return false;
+        }
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT
+                || (display.getFlags() & Display.FLAG_PRIVATE) == 0;
     }
 
     /**
@@ -145,9 +268,29 @@ public class AppUtils {
      * @return
      */
     public static int getExtDisplayId(Context context) {
-        WindowManager w = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-        Display display = w.getDefaultDisplay();
+        Display display = DisplayInfoManager.getDisplay(context);
         // on pc display for phone + extend display usage only
         return display.getDisplayId();
     }
+
+    /**
+     * SmtPCUtils 只存在于部分厂商的 framework 中, 只从 BootClassLoader 中查找, 避免找到应用内同名的类, 结果只查找一次
+     * @return 不存在时返回 {@code null}
+     */
+    private static Method getIsValidExtDisplayIdMethod() {
+        if (!sIsValidExtDisplayIdResolved) {
+            synchronized (AppUtils.class) {
+                if (!sIsValidExtDisplayIdResolved) {
+                    try {
+                        sIsValidExtDisplayId = Class.forName(CLASS_SMT_PC_UTILS, false, null)
+                                .getMethod("isValidExtDisplayId", int.class);
+                    } catch (Exception ignored) {
+                        // 不是这些厂商的系统
+                    }
+                    sIsValidExtDisplayIdResolved = true;
+                }
+            }
+        }
+        return sIsValidExtDisplayId;
+    }
 }
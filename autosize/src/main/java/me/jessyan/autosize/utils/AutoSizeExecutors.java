@@ -0,0 +1,55 @@
+package me.jessyan.autosize.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import android.os.Process;
+
+/**
+ * AndroidAutoSize 内部共用的后台线程池，只有一个低优先级的守护线程，空闲一段时间后自动退出
+ * 用于启动阶段的 metadata 读取等不应占用主线程的工作
+ * @author jiwenjie
+ */
+public final class AutoSizeExecutors {
+    private static final long KEEP_ALIVE_SECONDS = 10;
+    private static volatile ExecutorService sBackground;
+
+    private AutoSizeExecutors() {
+        throw new IllegalStateException("you can't instantiate me!");
+    }
+
+    /**
+     * @return 低优先级的单线程后台线程池
+     */
+    public static ExecutorService background() {
+        if (sBackground == null) {
+            synchronized (AutoSizeExecutors.class) {
+                if (sBackground == null) {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS,
+                            TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                            new ThreadFactory() {
+                                @Override
+                                public Thread newThread(final Runnable r) {
+                                    Thread thread = new Thread(new Runnable() {
+                                        @Override
+                                        public void run() {
+                                            Process.setThreadPriority(
+                                                    Process.THREAD_PRIORITY_BACKGROUND);
+                                            r.run();
+                                        }
+                                    }, "AutoSize-Background");
+                                    thread.setDaemon(true);
+                                    return thread;
+                                }
+                            });
+                    executor.allowCoreThreadTimeOut(true);
+                    sBackground = executor;
+                }
+            }
+        }
+        return sBackground;
+    }
+}
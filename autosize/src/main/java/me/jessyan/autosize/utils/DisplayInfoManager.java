@@ -0,0 +1,383 @@
+package me.jessyan.autosize.utils;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.res.Resources;
+import android.database.ContentObserver;
+import android.graphics.Point;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.Settings;
+import android.util.DisplayMetrics;
+import android.util.SparseArray;
+import android.view.Display;
+import android.view.WindowManager;
+
+/**
+ * 按 display id 缓存屏幕本身的信息 (真实尺寸、density 等真实的 {@link DisplayMetrics}、是否是扩展屏) 以及状态栏高度、
+ * 全面屏手势开关, 避免每次使用都重新 getSystemService、getRealSize、Resources.getIdentifier、反射调用
+ * SmtPCUtils 并创建新的 {@link DisplayMetrics}、{@link Point}
+ * <p>
+ * {@link Display#getMetrics(DisplayMetrics)} 与 {@link Display#getSize(Point)} 在分屏、自由窗口下返回的是当前窗口
+ * 的尺寸, 同一个屏幕上的不同窗口各不相同, 所以不做缓存, 每次都实时读取
+ * <p>
+ * 默认屏幕的缓存由 {@link #invalidateAll()} 失效 ({@link me.jessyan.autosize.AutoSizeConfig} 在
+ * onConfigurationChanged 时调用, 默认屏幕的尺寸、density 变化一定会伴随 Configuration 的变化); 副屏的变化不会通知
+ * 到 Application, 所以第一次查询副屏时才注册 {@link DisplayManager.DisplayListener}, 此后副屏的缓存由它的回调失效,
+ * 在不支持 {@link DisplayManager.DisplayListener} 的系统 (API 17 以下) 上不缓存副屏的信息; force_fsg_nav_bar 的
+ * {@link ContentObserver} 同样在第一次查询时才注册, 避免在 InitProvider 的冷启动路径上进行 binder 调用
+ * <p>
+ * 通过 {@link ScreenUtils} 使用即可，带 out 参数的方法不会产生对象分配
+ * @author jiwenjie
+ */
+public final class DisplayInfoManager {
+    private static final String KEY_FORCE_FSG_NAV_BAR = "force_fsg_nav_bar";
+    private static final int UNKNOWN = -1;
+    private static volatile DisplayInfoManager sInstance;
+
+    private final Context mAppCtx;
+    private final WindowManager mWindowManager;
+    /**
+     * 是否已经注册了 {@link DisplayManager.DisplayListener}, 没有注册时不能缓存副屏相关的信息
+     */
+    private volatile boolean isListening;
+    private volatile boolean isListenerRegistered;
+    /**
+     * 是否已经注册了 force_fsg_nav_bar 的 {@link ContentObserver}
+     */
+    private volatile boolean isObservingNavBar;
+    private volatile boolean isObserverRegistered;
+    /**
+     * display id -> {@link DisplayInfo}
+     */
+    private final SparseArray<DisplayInfo> mDisplayInfos = new SparseArray<>(2);
+    /**
+     * {@link #getScreenSize(Context, int[])} 使用的临时对象, 使用时需要持有自身的锁
+     */
+    private final Point mTmpSize = new Point();
+    private volatile int mStatusBarHeight = UNKNOWN;
+    private volatile int mForceFsgNavBar = UNKNOWN;
+
+    private DisplayInfoManager(Context appCtx) {
+        mAppCtx = appCtx;
+        mWindowManager = (WindowManager) appCtx.getSystemService(Context.WINDOW_SERVICE);
+    }
+
+    public static DisplayInfoManager getInstance(Context context) {
+        if (sInstance == null) {
+            synchronized (DisplayInfoManager.class) {
+                if (sInstance == null) {
+                    Context appCtx = context.getApplicationContext();
+                    sInstance = new DisplayInfoManager(appCtx != null ? appCtx : context);
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * @return 已经创建的实例, 尚未创建时返回 {@code null}
+     */
+    static DisplayInfoManager peekInstance() {
+        return sInstance;
+    }
+
+    /**
+     * 获取 {@link Context} 所在的 {@link Display}, {@link Activity} 直接使用自身的 {@link WindowManager}, 不需要
+     * getSystemService
+     */
+    public static Display getDisplay(Context context) {
+        WindowManager windowManager = context instanceof Activity
+                ? ((Activity) context).getWindowManager()
+                : (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        return windowManager.getDefaultDisplay();
+    }
+
+    /**
+     * 原始的屏幕尺寸, includes window decorations (statusbar bar/menu bar)
+     * @param context {@link Context}, 使用该 {@link Context} 所在的 {@link Display}
+     * @param outSize 长度至少为 2, 依次写入宽、高
+     */
+    public void getRealScreenSize(Context context, int[] outSize) {
+        DisplayInfo info = getDisplayInfo(getDisplay(context));
+        outSize[0] = info.realMetrics.widthPixels;
+        outSize[1] = info.realMetrics.heightPixels;
+    }
+
+    /**
+     * 当前的屏幕尺寸, excludes window decorations (statusbar bar/menu bar), 分屏、自由窗口下为当前窗口的尺寸,
+     * 每次实时读取
+     * @param context {@link Context}, 使用该 {@link Context} 所在的 {@link Display}
+     * @param outSize 长度至少为 2, 依次写入宽、高
+     */
+    public void getScreenSize(Context context, int[] outSize) {
+        Display display = getDisplay(context);
+        synchronized (mTmpSize) {
+            display.getSize(mTmpSize);
+            outSize[0] = mTmpSize.x;
+            outSize[1] = mTmpSize.y;
+        }
+    }
+
+    /**
+     * 默认屏幕的 {@link DisplayMetrics}, 不是 RealDisplayMetrics, 每次实时读取
+     * @param outMetrics 结果写入此对象
+     */
+    public void getDisplayMetrics(DisplayMetrics outMetrics) {
+        mWindowManager.getDefaultDisplay().getMetrics(outMetrics);
+    }
+
+    /**
+     * {@link Context} 所在屏幕的 {@link DisplayMetrics}, 不是 RealDisplayMetrics, 分屏、自由窗口下为当前窗口的
+     * 尺寸, 每次实时读取
+     * @param context {@link Context}, 使用该 {@link Context} 所在的 {@link Display}
+     * @param outMetrics 结果写入此对象
+     */
+    public void getDisplayMetrics(Context context, DisplayMetrics outMetrics) {
+        getDisplay(context).getMetrics(outMetrics);
+    }
+
+    /**
+     * {@link Context} 所在屏幕真实的 {@link DisplayMetrics}, 尺寸为整个屏幕的尺寸, 不受分屏、自由窗口的影响
+     * @param context {@link Context}, 使用该 {@link Context} 所在的 {@link Display}
+     * @param outMetrics 结果写入此对象
+     */
+    public void getRealDisplayMetrics(Context context, DisplayMetrics outMetrics) {
+        outMetrics.setTo(getDisplayInfo(getDisplay(context)).realMetrics);
+    }
+
+    /**
+     * @return 默认屏幕的 {@link DisplayMetrics#density}
+     */
+    public float getDensity() {
+        return getDisplayInfo(mWindowManager.getDefaultDisplay()).realMetrics.density;
+    }
+
+    /**
+     * @param context {@link Context}, 使用该 {@link Context} 所在的 {@link Display}
+     * @return 该屏幕的 {@link DisplayMetrics#density}
+     */
+    public float getDensity(Context context) {
+        return getDisplayInfo(getDisplay(context)).realMetrics.density;
+    }
+
+    /**
+     * @param context {@link Context}, 使用该 {@link Context} 所在的 {@link Display}
+     * @return 该屏幕是否是扩展屏, 见 {@link AppUtils#isExtDevice(Context)}
+     */
+    public boolean isExtDisplay(Context context) {
+        return getDisplayInfo(getDisplay(context)).isExtDisplay;
+    }
+
+    /**
+     * @return 状态栏高度
+     */
+    public int getStatusBarHeight() {
+        int height = mStatusBarHeight;
+        if (height == UNKNOWN) {
+            height = loadStatusBarHeight();
+            mStatusBarHeight = height;
+        }
+        return height;
+    }
+
+    /**
+     * @return 小米手机是否开启了全面屏手势隐藏了导航栏
+     */
+    public boolean isForceFsgNavBar() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return false;
+        }
+        ensureNavBarObserver();
+        int value = mForceFsgNavBar;
+        if (value == UNKNOWN) {
+            value = Settings.Global.getInt(mAppCtx.getContentResolver(), KEY_FORCE_FSG_NAV_BAR,
+                    0) != 0 ? 1 : 0;
+            if (isObservingNavBar) {
+                mForceFsgNavBar = value;
+            }
+        }
+        return value == 1;
+    }
+
+    /**
+     * 使某个 display 的缓存失效
+     * @param displayId display id
+     */
+    public void invalidate(int displayId) {
+        synchronized (mDisplayInfos) {
+            mDisplayInfos.remove(displayId);
+        }
+        if (displayId == Display.DEFAULT_DISPLAY) {
+            mStatusBarHeight = UNKNOWN;
+        }
+    }
+
+    /**
+     * 使所有缓存失效
+     */
+    public void invalidateAll() {
+        synchronized (mDisplayInfos) {
+            mDisplayInfos.clear();
+        }
+        mStatusBarHeight = UNKNOWN;
+        mForceFsgNavBar = UNKNOWN;
+    }
+
+    private DisplayInfo getDisplayInfo(Display display) {
+        int displayId = display.getDisplayId();
+        if (displayId != Display.DEFAULT_DISPLAY) {
+            ensureDisplayListener();
+            if (!isListening) {
+                return createDisplayInfo(display);
+            }
+        }
+        DisplayInfo info;
+        synchronized (mDisplayInfos) {
+            info = mDisplayInfos.get(displayId);
+        }
+        if (info == null) {
+            info = createDisplayInfo(display);
+            synchronized (mDisplayInfos) {
+                mDisplayInfos.put(displayId, info);
+            }
+        }
+        return info;
+    }
+
+    private static DisplayInfo createDisplayInfo(Display display) {
+        DisplayMetrics metrics = new DisplayMetrics();
+        // includes window decorations (statusbar bar/menu bar)
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            display.getRealMetrics(metrics);
+            return new DisplayInfo(metrics, AppUtils.resolveExtDisplay(display));
+        }
+
+        // since SDK_INT = 1;
+        display.getMetrics(metrics);
+        // includes window decorations (statusbar bar/menu bar)
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            try {
+                int widthPixels = (Integer) Display.class.getMethod("getRawWidth").invoke(display);
+                int heightPixels = (Integer) Display.class.getMethod("getRawHeight")
+                        .invoke(display);
+                metrics.widthPixels = widthPixels;
+                metrics.heightPixels = heightPixels;
+            } catch (Exception ignored) {
+            }
+        }
+        return new DisplayInfo(metrics, AppUtils.resolveExtDisplay(display));
+    }
+
+    static int loadStatusBarHeight() {
+        int result = 0;
+        try {
+            int resourceId = Resources.getSystem().getIdentifier("status_bar_height", "dimen",
+                    "android");
+            if (resourceId > 0) {
+                result = Resources.getSystem().getDimensionPixelSize(resourceId);
+            }
+        } catch (Resources.NotFoundException e) {
+            e.printStackTrace();
+        }
+        return result;
+    }
+
+    /**
+     * 第一次查询副屏时注册 {@link DisplayManager.DisplayListener}, 只尝试一次
+     */
+    private void ensureDisplayListener() {
+        if (isListenerRegistered) {
+            return;
+        }
+        synchronized (this) {
+            if (!isListenerRegistered) {
+                isListening = registerDisplayListener(new Handler(Looper.getMainLooper()));
+                isListenerRegistered = true;
+            }
+        }
+    }
+
+    /**
+     * 第一次查询 force_fsg_nav_bar 时注册 {@link ContentObserver}, 只尝试一次
+     */
+    private void ensureNavBarObserver() {
+        if (isObserverRegistered) {
+            return;
+        }
+        synchronized (this) {
+            if (!isObserverRegistered) {
+                isObservingNavBar = registerNavBarObserver(new Handler(Looper.getMainLooper()));
+                isObserverRegistered = true;
+            }
+        }
+    }
+
+    private boolean registerDisplayListener(Handler handler) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return false;
+        }
+        DisplayManager displayManager = (DisplayManager) mAppCtx
+                .getSystemService(Context.DISPLAY_SERVICE);
+        if (displayManager == null) {
+            return false;
+        }
+        displayManager.registerDisplayListener(new DisplayManager.DisplayListener() {
+            @Override
+            public void onDisplayAdded(int displayId) {
+            }
+
+            @Override
+            public void onDisplayRemoved(int displayId) {
+                invalidate(displayId);
+            }
+
+            @Override
+            public void onDisplayChanged(int displayId) {
+                invalidate(displayId);
+            }
+        }, handler);
+        return true;
+    }
+
+    private boolean registerNavBarObserver(Handler handler) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return false;
+        }
+        try {
+            mAppCtx.getContentResolver().registerContentObserver(
+                    Settings.Global.getUriFor(KEY_FORCE_FSG_NAV_BAR), false,
+                    new ContentObserver(handler) {
+                        @Override
+                        public void onChange(boolean selfChange) {
+                            mForceFsgNavBar = UNKNOWN;
+                        }
+                    });
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 单个 display 的屏幕信息, 不可变
+     */
+    private static final class DisplayInfo {
+        /**
+         * 整个屏幕真实的 {@link DisplayMetrics}, 不会被修改
+         */
+        final DisplayMetrics realMetrics;
+        /**
+         * 是否是扩展屏, 部分厂商需要反射调用 SmtPCUtils 才能判断
+         */
+        final boolean isExtDisplay;
+
+        DisplayInfo(DisplayMetrics realMetrics, boolean isExtDisplay) {
+            this.realMetrics = realMetrics;
+            this.isExtDisplay = isExtDisplay;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package me.jessyan.autosize.utils;
+
+/**
+ * autosize-plugin 在编译期根据合并后的 AndroidManifest 生成的 metadata, 生成的类为
+ * {@link ManifestIndex#GENERATED_MANIFEST}, 存在时 {@link ManifestIndex} 直接使用它, 不再查询 PackageManager
+ * <p>
+ * 只包含 autosize_intrinsic、windowParams、design_width_in_dp、design_height_in_dp 四个 key, 值的类型与
+ * PackageManager 返回的 {@link android.os.Bundle} 中的类型一致
+ * @author jiwenjie
+ */
+public interface GeneratedManifest {
+    /**
+     * @return Application 上的 metadata, key、value 交替排列
+     */
+    Object[] appMetaData();
+
+    /**
+     * @return AndroidManifest 中声明的所有 Activity 的类名
+     */
+    String[] activityNames();
+
+    /**
+     * @return 与 {@link #activityNames()} 一一对应的 metadata, key、value 交替排列, 没有相关 metadata 时为 {@code null}
+     */
+    Object[][] activityMetaData();
+}
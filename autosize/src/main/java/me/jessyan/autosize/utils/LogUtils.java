@@ -15,46 +15,176 @@
  */
 package me.jessyan.autosize.utils;
 
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 import android.util.Log;
 
 /**
  * ================================================
+ * 按级别开关的日志, 关闭时每次调用只有一次 {@link #isLoggable(int)} 判断
+ * <p>
+ * 带 format 参数的方法只有在该级别开启时才会执行 {@link String#format(Locale, String, Object...)}; 热路径上如果参数需要
+ * 装箱或额外计算, 调用方应先判断 {@link #isLoggable(int)}, 避免关闭日志时也产生对象分配
+ * <p>
+ * 可通过 {@link #setSampleRate(String, int)} 对某个 tag 采样输出; release 包中可引入 autosize 模块下的
+ * proguard-strip-log.pro, 由 R8 直接删除所有日志代码
  * Created by JessYan on 2018/8/8 18:48
  * <a href="mailto:jess.yan.effort@gmail.com">Contact me</a>
  * <a href="https://github.com/JessYanCoding">Follow me</a>
  * ================================================
  */
 public class LogUtils {
-    private static final String TAG = "AndroidAutoSize";
-    private static boolean debug;
+    public static final int VERBOSE = Log.VERBOSE;
+    public static final int DEBUG = Log.DEBUG;
+    public static final int INFO = Log.INFO;
+    public static final int WARN = Log.WARN;
+    public static final int ERROR = Log.ERROR;
+    /**
+     * 关闭所有日志
+     */
+    public static final int NONE = Integer.MAX_VALUE;
+
+    public static final String TAG = "AndroidAutoSize";
+    /**
+     * 初始化、屏幕信息以及配置变化
+     */
+    public static final String TAG_INIT = "AutoSize.Init";
+    /**
+     * 每次适配的结果
+     */
+    public static final String TAG_ADAPT = "AutoSize.Adapt";
+    /**
+     * 适配方式的选择 (取消适配、{@link me.jessyan.autosize.external.ExternalAdaptInfo} 等)
+     */
+    public static final String TAG_STRATEGY = "AutoSize.Strategy";
+    /**
+     * AndroidManifest 中 metadata 的读取
+     */
+    public static final String TAG_MANIFEST = "AutoSize.Manifest";
+
+    private static volatile int sLevel = NONE;
+    /**
+     * tag -> {@link Sampler}, 只有开启了日志才会查询
+     */
+    private static final Map<String, Sampler> sSamplers = new ConcurrentHashMap<>();
 
     private LogUtils() {
         throw new IllegalStateException("you can't instantiate me!");
     }
 
+    /**
+     * @param level 日志级别, 如 {@link #DEBUG}
+     * @return 该级别的日志是否会输出
+     */
+    public static boolean isLoggable(int level) {
+        return level >= sLevel;
+    }
+
+    /**
+     * 设置输出的最低级别, {@link #NONE} 为关闭所有日志
+     * @param level 日志级别, 如 {@link #DEBUG}
+     */
+    public static void setLevel(int level) {
+        sLevel = level;
+    }
+
+    public static int getLevel() {
+        return sLevel;
+    }
+
     public static boolean isDebug() {
-        return debug;
+        return isLoggable(DEBUG);
     }
 
+    /**
+     * @param debug {@code true} 等同于 {@code setLevel(DEBUG)}, {@code false} 等同于
+     *            {@code setLevel(NONE)}
+     */
     public static void setDebug(boolean debug) {
-        LogUtils.debug = debug;
+        setLevel(debug ? DEBUG : NONE);
+    }
+
+    /**
+     * 对某个 tag 的日志采样, 每 everyN 条只输出第一条, 适合适配日志这类每个页面都会输出的日志
+     * @param tag 日志 tag, 如 {@link #TAG_ADAPT}
+     * @param everyN 采样间隔, 小于等于 1 时取消采样
+     */
+    public static void setSampleRate(String tag, int everyN) {
+        if (everyN <= 1) {
+            sSamplers.remove(tag);
+        } else {
+            sSamplers.put(tag, new Sampler(everyN));
+        }
     }
 
     public static void d(String message) {
-        if (debug) {
-            Log.d(TAG, message);
+        if (isLoggable(DEBUG)) {
+            println(DEBUG, TAG, message, null);
         }
     }
 
     public static void w(String message) {
-        if (debug) {
-            Log.w(TAG, message);
+        if (isLoggable(WARN)) {
+            println(WARN, TAG, message, null);
         }
     }
 
     public static void e(String message) {
-        if (debug) {
-            Log.e(TAG, message);
+        if (isLoggable(ERROR)) {
+            println(ERROR, TAG, message, null);
+        }
+    }
+
+    public static void d(String tag, String format, Object... args) {
+        if (isLoggable(DEBUG)) {
+            println(DEBUG, tag, format, args);
+        }
+    }
+
+    public static void i(String tag, String format, Object... args) {
+        if (isLoggable(INFO)) {
+            println(INFO, tag, format, args);
+        }
+    }
+
+    public static void w(String tag, String format, Object... args) {
+        if (isLoggable(WARN)) {
+            println(WARN, tag, format, args);
+        }
+    }
+
+    public static void e(String tag, String format, Object... args) {
+        if (isLoggable(ERROR)) {
+            println(ERROR, tag, format, args);
+        }
+    }
+
+    private static void println(int level, String tag, String format, Object[] args) {
+        Sampler sampler = sSamplers.get(tag);
+        if (sampler != null && !sampler.sample()) {
+            return;
+        }
+        String message = args == null || args.length == 0 ? format
+                : String.format(Locale.ENGLISH, format, args);
+        Log.println(level, tag, message);
+    }
+
+    /**
+     * 每 {@link #mEveryN} 条日志输出一条
+     */
+    private static final class Sampler {
+        private final int mEveryN;
+        private final AtomicLong mCount = new AtomicLong();
+
+        Sampler(int everyN) {
+            mEveryN = everyN;
+        }
+
+        boolean sample() {
+            return mCount.getAndIncrement() % mEveryN == 0;
         }
     }
 }
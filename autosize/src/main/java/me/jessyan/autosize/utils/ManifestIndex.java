@@ -0,0 +1,322 @@
+package me.jessyan.autosize.utils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+
+/**
+ * AndroidManifest metadata 的不可变索引，在后台线程通过一次
+ * {@code getPackageInfo(GET_ACTIVITIES | GET_META_DATA)} 调用建立
+ * <p>
+ * 索引建立完成后，{@link AppUtils} 中的 metadata 查询直接从内存读取，不再针对每个 key、每个 Activity 单独查询 PackageManager；
+ * 索引建立完成前或建立失败时，{@link AppUtils} 仍然按原来的方式查询 PackageManager
+ * <p>
+ * 应用使用了 autosize-plugin 时，索引直接由编译期生成的 {@link #GENERATED_MANIFEST} 建立，不需要任何 PackageManager 查询，
+ * 此时索引只包含 AndroidAutoSize 相关的四个 key，其余 key 仍然查询 PackageManager
+ * @author jiwenjie
+ */
+public final class ManifestIndex {
+    static final String KEY_AUTOSIZE_INTRINSIC = "autosize_intrinsic";
+    static final String KEY_WINDOW_PARAMS = "windowParams";
+    static final String KEY_DESIGN_WIDTH_IN_DP = "design_width_in_dp";
+    static final String KEY_DESIGN_HEIGHT_IN_DP = "design_height_in_dp";
+    /**
+     * 需要索引的 Activity metadata key
+     */
+    private static final String[] ACTIVITY_KEYS = { KEY_AUTOSIZE_INTRINSIC, KEY_WINDOW_PARAMS,
+            KEY_DESIGN_WIDTH_IN_DP, KEY_DESIGN_HEIGHT_IN_DP };
+
+    /**
+     * autosize-plugin 生成的 {@link GeneratedManifest} 类名
+     */
+    public static final String GENERATED_MANIFEST =
+            "me.jessyan.autosize.generated.AutoSizeManifest";
+
+    private static volatile ManifestIndex sIndex;
+    private static volatile boolean sGeneratedLoaded;
+    private static boolean sPreloading;
+
+    /**
+     * Application 的全部 metadata
+     */
+    private final Map<String, Object> mAppMetaData;
+    /**
+     * Activity 类名 -> 该 Activity 上与 AndroidAutoSize 相关的 metadata
+     */
+    private final Map<String, Map<String, Object>> mActivityMetaData;
+    /**
+     * Activity 类名 -> 解析好的 {@link ActivityMetaData}
+     */
+    private final Map<String, ActivityMetaData> mResolved;
+    /**
+     * 是否由 {@link #GENERATED_MANIFEST} 建立
+     */
+    private final boolean isGenerated;
+
+    private ManifestIndex(Map<String, Object> appMetaData,
+            Map<String, Map<String, Object>> activityMetaData,
+            Map<String, ActivityMetaData> resolved, boolean generated) {
+        mAppMetaData = appMetaData;
+        mActivityMetaData = activityMetaData;
+        mResolved = resolved;
+        isGenerated = generated;
+    }
+
+    /**
+     * 在后台线程建立索引，多次调用只会执行一次
+     * @param context {@link Context}
+     */
+    public static void preload(Context context) {
+        final Context appCtx = context.getApplicationContext() != null
+                ? context.getApplicationContext() : context;
+        if (get() != null) {
+            return;
+        }
+        synchronized (ManifestIndex.class) {
+            if (sIndex != null || sPreloading) {
+                return;
+            }
+            sPreloading = true;
+        }
+        AutoSizeExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                ManifestIndex index = build(appCtx);
+                synchronized (ManifestIndex.class) {
+                    sPreloading = false;
+                    sIndex = index;
+                }
+                if (index != null) {
+                    LogUtils.d(LogUtils.TAG_MANIFEST,
+                            "manifest index built in %dms, activities = %d",
+                            (System.nanoTime() - start) / 1000000, index.mResolved.size());
+                }
+            }
+        });
+    }
+
+    /**
+     * @return 已经建立好的索引，尚未建立或建立失败时返回 {@code null}
+     */
+    public static ManifestIndex get() {
+        ManifestIndex index = sIndex;
+        if (index == null && !sGeneratedLoaded) {
+            index = loadGenerated();
+        }
+        return index;
+    }
+
+    /**
+     * 丢弃已经建立的索引，由 {@link AppUtils#invalidateMetaDataCache()} 调用，编译期生成的索引与当前 APK 一致，不需要丢弃
+     */
+    static void clear() {
+        synchronized (ManifestIndex.class) {
+            if (sIndex != null && !sIndex.isGenerated) {
+                sIndex = null;
+            }
+        }
+    }
+
+    /**
+     * 加载 {@link #GENERATED_MANIFEST}, 只会尝试一次, 没有使用 autosize-plugin 时返回 {@code null}
+     */
+    private static synchronized ManifestIndex loadGenerated() {
+        if (sGeneratedLoaded) {
+            return sIndex;
+        }
+        try {
+            Class<?> manifestClass = Class.forName(GENERATED_MANIFEST, true,
+                    ManifestIndex.class.getClassLoader());
+            sIndex = fromGenerated((GeneratedManifest) manifestClass.newInstance());
+        } catch (ClassNotFoundException ignored) {
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        sGeneratedLoaded = true;
+        return sIndex;
+    }
+
+    static ManifestIndex fromGenerated(GeneratedManifest manifest) {
+        Map<String, Object> appMetaData = toMap(manifest.appMetaData());
+        String[] names = manifest.activityNames();
+        Object[][] values = manifest.activityMetaData();
+        Map<String, Map<String, Object>> activityValues = new LinkedHashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            activityValues.put(names[i], values[i] != null ? toMap(values[i]) : null);
+        }
+        return create(appMetaData, activityValues, true);
+    }
+
+    private static Map<String, Object> toMap(Object[] keyValues) {
+        Map<String, Object> map = new HashMap<>(keyValues.length);
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            map.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+
+    /**
+     * 同步建立索引
+     * @param appCtx {@link Context}
+     * @return 建立失败返回 {@code null}
+     */
+    static ManifestIndex build(Context appCtx) {
+        PackageInfo packageInfo;
+        try {
+            packageInfo = appCtx.getPackageManager().getPackageInfo(appCtx.getPackageName(),
+                    PackageManager.GET_ACTIVITIES | PackageManager.GET_META_DATA);
+        } catch (Exception e) {
+            // 包含 PackageManager.NameNotFoundException 以及 Binder 数据过大导致的异常
+            e.printStackTrace();
+            return null;
+        }
+
+        Map<String, Object> appMetaData = new HashMap<>();
+        Bundle appBundle = packageInfo.applicationInfo != null
+                ? packageInfo.applicationInfo.metaData : null;
+        if (appBundle != null) {
+            for (String key : appBundle.keySet()) {
+                appMetaData.put(key, appBundle.get(key));
+            }
+        }
+
+        Map<String, Map<String, Object>> activityValues = new LinkedHashMap<>();
+        ActivityInfo[] activities = packageInfo.activities;
+        if (activities != null) {
+            for (ActivityInfo info : activities) {
+                Map<String, Object> values = null;
+                if (info.metaData != null) {
+                    for (String key : ACTIVITY_KEYS) {
+                        if (info.metaData.containsKey(key)) {
+                            if (values == null) {
+                                values = new HashMap<>(4);
+                            }
+                            values.put(key, info.metaData.get(key));
+                        }
+                    }
+                }
+                activityValues.put(info.name, values);
+            }
+        }
+        return create(appMetaData, activityValues, false);
+    }
+
+    /**
+     * @param appMetaData Application 的 metadata
+     * @param activityValues Activity 类名 -> 该 Activity 上与 AndroidAutoSize 相关的 metadata, 没有时为 {@code null}
+     * @param generated 是否由 {@link #GENERATED_MANIFEST} 建立
+     */
+    private static ManifestIndex create(Map<String, Object> appMetaData,
+            Map<String, Map<String, Object>> activityValues, boolean generated) {
+        Object appIntrinsic = appMetaData.get(KEY_AUTOSIZE_INTRINSIC);
+        boolean appKeepIntrinsic = appIntrinsic instanceof Boolean && (Boolean) appIntrinsic;
+        WindowParams appWindowParams = null;
+        Object appWindowParamsValue = appMetaData.get(KEY_WINDOW_PARAMS);
+        if (appWindowParamsValue instanceof String) {
+            int[] params = AppUtils.parseWindowParams((String) appWindowParamsValue);
+            if (params != null) {
+                appWindowParams = WindowParams.createWindowParams(params);
+            }
+        }
+        ActivityMetaData defaultMetaData = new ActivityMetaData(appKeepIntrinsic,
+                appWindowParams);
+
+        Map<String, Map<String, Object>> activityMetaData = new HashMap<>();
+        Map<String, ActivityMetaData> resolved = new HashMap<>();
+        for (Map.Entry<String, Map<String, Object>> entry : activityValues.entrySet()) {
+            String name = entry.getKey();
+            Map<String, Object> values = entry.getValue();
+            if (values == null) {
+                resolved.put(name, defaultMetaData);
+                continue;
+            }
+            activityMetaData.put(name, Collections.unmodifiableMap(values));
+
+            boolean keepIntrinsic = appKeepIntrinsic;
+            Object intrinsic = values.get(KEY_AUTOSIZE_INTRINSIC);
+            if (intrinsic instanceof Boolean) {
+                keepIntrinsic = (Boolean) intrinsic;
+            }
+            WindowParams windowParams = appWindowParams;
+            Object windowParamsValue = values.get(KEY_WINDOW_PARAMS);
+            if (windowParamsValue instanceof String) {
+                int[] params = AppUtils.parseWindowParams((String) windowParamsValue);
+                if (params != null) {
+                    windowParams = WindowParams.combineWindowParams(appWindowParams != null
+                            ? appWindowParams.getOriginParams() : new int[0], params);
+                }
+            }
+            resolved.put(name, new ActivityMetaData(keepIntrinsic, windowParams));
+        }
+        return new ManifestIndex(Collections.unmodifiableMap(appMetaData),
+                Collections.unmodifiableMap(activityMetaData),
+                Collections.unmodifiableMap(resolved), generated);
+    }
+
+    /**
+     * @param key metadata 的 key
+     * @return Application 上对应的 metadata, 不存在时返回 {@code null}
+     */
+    public Object getAppMetaData(String key) {
+        return mAppMetaData.get(key);
+    }
+
+    /**
+     * @param key metadata 的 key
+     * @return 这个 key 是否被索引, 由 {@link #GENERATED_MANIFEST} 建立的索引只包含 AndroidAutoSize 相关的 key
+     */
+    public boolean containsAppKey(String key) {
+        return !isGenerated || isIndexedActivityKey(key);
+    }
+
+    /**
+     * @return 是否由 autosize-plugin 在编译期生成
+     */
+    public boolean isGenerated() {
+        return isGenerated;
+    }
+
+    /**
+     * 查询 Activity 上的 metadata, 只索引了 autosize_intrinsic、windowParams、design_width_in_dp、design_height_in_dp
+     * @param className Activity 类名
+     * @param key metadata 的 key
+     * @return Activity 上对应的 metadata, 不存在时返回 {@code null}
+     */
+    public Object getActivityMetaData(String className, String key) {
+        Map<String, Object> values = mActivityMetaData.get(className);
+        return values != null ? values.get(key) : null;
+    }
+
+    /**
+     * @param className Activity 类名
+     * @return 是否是 AndroidManifest 中声明的 Activity
+     */
+    public boolean containsActivity(String className) {
+        return mResolved.containsKey(className);
+    }
+
+    /**
+     * @param className Activity 类名
+     * @return 解析好的 {@link ActivityMetaData}, AndroidManifest 中没有该 Activity 时返回 {@code null}
+     */
+    public ActivityMetaData getResolvedActivityMetaData(String className) {
+        return mResolved.get(className);
+    }
+
+    static boolean isIndexedActivityKey(String key) {
+        for (String indexed : ACTIVITY_KEYS) {
+            if (indexed.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
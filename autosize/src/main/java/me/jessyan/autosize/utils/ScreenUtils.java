@@ -17,10 +17,6 @@ package me.jessyan.autosize.utils;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.res.Resources;
-import android.graphics.Point;
-import android.os.Build;
-import android.provider.Settings;
 import android.util.DisplayMetrics;
 import android.view.Display;
 import android.view.WindowManager;
@@ -38,30 +34,28 @@ public class ScreenUtils {
         throw new IllegalStateException("you can't instantiate me!");
     }
 
+    /**
+     * 获取状态栏高度, 结果由 {@link DisplayInfoManager} 缓存
+     * @return 状态栏高度
+     */
     public static int getStatusBarHeight() {
-        int result = 0;
-        try {
-            int resourceId = Resources.getSystem().getIdentifier("status_bar_height", "dimen",
-                    "android");
-            if (resourceId > 0) {
-                result = Resources.getSystem().getDimensionPixelSize(resourceId);
-            }
-        } catch (Resources.NotFoundException e) {
-            e.printStackTrace();
-        }
-        return result;
+        DisplayInfoManager manager = DisplayInfoManager.peekInstance();
+        return manager != null ? manager.getStatusBarHeight()
+                : DisplayInfoManager.loadStatusBarHeight();
     }
 
     public static int getHeightOfNavigationBar(Context context) {
+        DisplayInfoManager manager = DisplayInfoManager.getInstance(context);
         // 如果小米手机开启了全面屏手势隐藏了导航栏则返回 0
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-            if (Settings.Global.getInt(context.getContentResolver(), "force_fsg_nav_bar", 0) != 0) {
-                return 0;
-            }
+        if (manager.isForceFsgNavBar()) {
+            return 0;
         }
 
-        int realHeight = getRealScreenSize(context)[1];
-        int displayHeight = getScreenSize(context)[1];
+        int[] size = new int[2];
+        manager.getRealScreenSize(context, size);
+        int realHeight = size[1];
+        manager.getScreenSize(context, size);
+        int displayHeight = size[1];
         return realHeight - displayHeight;
     }
 
@@ -71,32 +65,18 @@ public class ScreenUtils {
      * @return 屏幕尺寸
      */
     public static int[] getRealScreenSize(Context context) {
-        WindowManager w = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-        Display d = w.getDefaultDisplay();
-        DisplayMetrics metrics = new DisplayMetrics();
-        d.getMetrics(metrics);
-
-        // since SDK_INT = 1;
-        int widthPixels = metrics.widthPixels;
-        int heightPixels = metrics.heightPixels;
+        int[] size = new int[2];
+        getRealScreenSize(context, size);
+        return size;
+    }
 
-        // includes window decorations (statusbar bar/menu bar)
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH
-                && Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1) {
-            try {
-                widthPixels = (Integer) Display.class.getMethod("getRawWidth").invoke(d);
-                heightPixels = (Integer) Display.class.getMethod("getRawHeight").invoke(d);
-            } catch (Exception ignored) {
-            }
-        }
-        // includes window decorations (statusbar bar/menu bar)
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-            Point realSize = new Point();
-            d.getRealSize(realSize);
-            widthPixels = realSize.x;
-            heightPixels = realSize.y;
-        }
-        return new int[] { widthPixels, heightPixels };
+    /**
+     * 获取原始的屏幕尺寸, 不产生对象分配, 结果由 {@link DisplayInfoManager} 缓存
+     * @param context {@link Context}
+     * @param outSize 长度至少为 2, 依次写入宽、高
+     */
+    public static void getRealScreenSize(Context context, int[] outSize) {
+        DisplayInfoManager.getInstance(context).getRealScreenSize(context, outSize);
     }
 
     /**
@@ -105,8 +85,18 @@ public class ScreenUtils {
      * @return 屏幕尺寸
      */
     public static int[] getScreenSize(Context context) {
-        DisplayMetrics metrics = getDisplayMetrics(context);
-        return new int[] { metrics.widthPixels, metrics.heightPixels };
+        int[] size = new int[2];
+        getScreenSize(context, size);
+        return size;
+    }
+
+    /**
+     * 获取当前的屏幕尺寸, 不产生对象分配, 分屏、自由窗口下为当前窗口的尺寸, 每次实时读取
+     * @param context {@link Context}
+     * @param outSize 长度至少为 2, 依次写入宽、高
+     */
+    public static void getScreenSize(Context context, int[] outSize) {
+        DisplayInfoManager.getInstance(context).getScreenSize(context, outSize);
     }
 
     /**
@@ -116,14 +106,29 @@ public class ScreenUtils {
      * @return
      */
     public static DisplayMetrics getDisplayMetrics(Context context) {
-        WindowManager w = (WindowManager) context.getApplicationContext()
-                .getSystemService(Context.WINDOW_SERVICE);
-        Display d = w.getDefaultDisplay();
         DisplayMetrics metrics = new DisplayMetrics();
-        d.getMetrics(metrics);
+        getDisplayMetrics(context, metrics);
         return metrics;
     }
 
+    /**
+     * 获取当前屏幕DisplayMetrics, 不产生对象分配, 每次实时读取
+     * @param context
+     * @param outMetrics 结果写入此对象
+     */
+    public static void getDisplayMetrics(Context context, DisplayMetrics outMetrics) {
+        DisplayInfoManager.getInstance(context).getDisplayMetrics(outMetrics);
+    }
+
+    /**
+     * 获取当前屏幕的 {@link DisplayMetrics#density}, 不产生对象分配
+     * @param context
+     * @return
+     */
+    public static float getDensity(Context context) {
+        return DisplayInfoManager.getInstance(context).getDensity();
+    }
+
     /**
      * 获取当前屏幕DisplayMetrics，不是RealDisplayMetrics，获取实际尺寸使用{@link #getRealScreenSize(Context)}
      * excludes window decorations (statusbar bar/menu bar)
@@ -0,0 +1,170 @@
+package me.jessyan.autosize.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * 在 systrace / Perfetto 中标记 AndroidAutoSize 各个适配阶段的耗时, 默认关闭, 通过
+ * {@link me.jessyan.autosize.AutoSizeConfig#setTrace(boolean)} 开启
+ * <p>
+ * section 名称为 "AutoSize.阶段:类名", 按 (阶段, 类) 缓存, 超出 {@link Trace} 127 个字符的限制时保留类名的末尾部分;
+ * 关闭时或系统没有在抓取 trace 时 (API 29 及以上) 只有一次判断
+ * <pre>
+ * boolean traced = TraceUtils.beginSection(TraceUtils.STAGE_STRATEGY, target.getClass());
+ * try {
+ *     ...
+ * } finally {
+ *     TraceUtils.endSection(traced);
+ * }
+ * </pre>
+ * @author jiwenjie
+ */
+public final class TraceUtils {
+    /**
+     * ActivityLifecycleCallbacks#onActivityCreated 中的全部工作
+     */
+    public static final int STAGE_ACTIVITY_CREATED = 0;
+    /**
+     * FragmentLifecycleCallbacks#onFragmentCreated 中的全部工作
+     */
+    public static final int STAGE_FRAGMENT_CREATED = 1;
+    /**
+     * AutoAdaptStrategy#applyAdapt, 选择适配方式并适配
+     */
+    public static final int STAGE_STRATEGY = 2;
+    /**
+     * 读取 Activity 在 AndroidManifest 中的 metadata
+     */
+    public static final int STAGE_META_DATA = 3;
+    /**
+     * 大屏模式下解析 {@link WindowParams}
+     */
+    public static final int STAGE_WINDOW_PARAMS = 4;
+    /**
+     * 计算 (或从缓存中取出) 目标 density
+     */
+    public static final int STAGE_DENSITY = 5;
+    /**
+     * 写入 DisplayMetrics 与 Configuration
+     */
+    public static final int STAGE_METRICS_WRITE = 6;
+    /**
+     * onAdaptListener 的回调
+     */
+    public static final int STAGE_LISTENER = 7;
+    private static final String[] STAGE_NAMES = { "activityCreated", "fragmentCreated",
+            "strategy", "metaData", "windowParams", "density", "metricsWrite", "listener" };
+    private static final int MAX_SECTION_NAME_LENGTH = 127;
+    private static final int API_Q = 29;
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private static volatile boolean sEnabled;
+    /**
+     * 类 -> 各个阶段的 section 名称, 按需生成
+     */
+    private static final ConcurrentHashMap<Class<?>, String[]> sSectionNames =
+            new ConcurrentHashMap<>();
+    /**
+     * Trace#isEnabled() 从 API 29 开始提供, compileSdkVersion 低于 29, 需要反射, {@link Method} 只查找一次
+     */
+    private static volatile boolean sIsEnabledResolved;
+    private static Method sIsEnabled;
+
+    private TraceUtils() {
+        throw new IllegalStateException("you can't instantiate me!");
+    }
+
+    /**
+     * @param enabled 是否输出 trace section, 只在 API 18 及以上生效
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * 开始一个 section
+     * @param stage 阶段, 如 {@link #STAGE_STRATEGY}
+     * @param clazz section 名称中的类, 一般是 target 或 Activity 的 {@link Class}
+     * @return 是否真正开始了 section, 需要原样传给 {@link #endSection(boolean)}
+     */
+    public static boolean beginSection(int stage, Class<?> clazz) {
+        if (!sEnabled) {
+            return false;
+        }
+        if (Build.VERSION.SDK_INT >= API_Q && !isTracing()) {
+            return false;
+        }
+        Trace.beginSection(getSectionName(stage, clazz));
+        return true;
+    }
+
+    /**
+     * 结束 {@link #beginSection(int, Class)} 开始的 section
+     * @param traced {@link #beginSection(int, Class)} 的返回值
+     */
+    public static void endSection(boolean traced) {
+        if (traced) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * @return 系统是否正在抓取 trace, 反射失败时返回 {@code true}, 与 API 29 以下的行为一致
+     */
+    private static boolean isTracing() {
+        if (!sIsEnabledResolved) {
+            synchronized (TraceUtils.class) {
+                if (!sIsEnabledResolved) {
+                    try {
+                        sIsEnabled = Trace.class.getMethod("isEnabled");
+                    } catch (Exception e) {
+                        LogUtils.w(LogUtils.TAG_ADAPT, "Trace.isEnabled unavailable: %s", e);
+                    }
+                    sIsEnabledResolved = true;
+                }
+            }
+        }
+        if (sIsEnabled == null) {
+            return true;
+        }
+        try {
+            return (Boolean) sIsEnabled.invoke(null, NO_ARGS);
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    private static String getSectionName(int stage, Class<?> clazz) {
+        String[] names = sSectionNames.get(clazz);
+        if (names == null) {
+            String[] newNames = new String[STAGE_NAMES.length];
+            names = sSectionNames.putIfAbsent(clazz, newNames);
+            if (names == null) {
+                names = newNames;
+            }
+        }
+        String name = names[stage];
+        if (name == null) {
+            // 多个线程同时生成时结果相同, 不需要同步
+            name = createSectionName(STAGE_NAMES[stage], clazz.getName());
+            names[stage] = name;
+        }
+        return name;
+    }
+
+    static String createSectionName(String stage, String className) {
+        String prefix = "AutoSize." + stage + ":";
+        int available = MAX_SECTION_NAME_LENGTH - prefix.length();
+        if (className.length() > available) {
+            className = className.substring(className.length() - available);
+        }
+        return prefix + className;
+    }
+}
@@ -0,0 +1,93 @@
+package me.jessyan.autosize.utils;
+
+import java.lang.reflect.Method;
+
+import android.app.Activity;
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.os.Build;
+
+/**
+ * 获取 {@link Activity} 所在窗口的尺寸, 用于分屏、画中画、自由窗口等多窗口模式下的适配
+ * <p>
+ * API 30 及以上通过 WindowManager#getCurrentWindowMetrics() 获取窗口边界 (compileSdkVersion 低于 30, 需要反射,
+ * {@link Method} 只查找一次); 更低的版本以及反射失败时使用 {@link Activity} 的 Display#getSize, API 24 起在多窗口模式下
+ * 返回的就是窗口尺寸
+ * @author jiwenjie
+ */
+public final class WindowUtils {
+    private static final int API_R = 30;
+    private static volatile boolean sWindowMetricsResolved;
+    private static Method sGetCurrentWindowMetrics;
+    private static Method sGetBounds;
+
+    private WindowUtils() {
+        throw new IllegalStateException("you can't instantiate me!");
+    }
+
+    /**
+     * 获取多窗口模式下的窗口尺寸, 全屏时与屏幕尺寸的取法不同 (是否包含状态栏等), 为了与默认的适配结果保持一致, 不在多窗口模式时
+     * 直接返回 {@code false}
+     * @param activity {@link Activity}
+     * @param outSize 长度至少为 2, 依次写入宽、高
+     * @return 不在多窗口模式或者获取失败时返回 {@code false}, 此时 outSize 不会被修改
+     */
+    public static boolean getMultiWindowSize(Activity activity, int[] outSize) {
+        if (!isInMultiWindowMode(activity)) {
+            return false;
+        }
+        if (Build.VERSION.SDK_INT >= API_R && getWindowMetricsBounds(activity, outSize)) {
+            return true;
+        }
+        Point size = new Point();
+        activity.getWindowManager().getDefaultDisplay().getSize(size);
+        if (size.x <= 0 || size.y <= 0) {
+            return false;
+        }
+        outSize[0] = size.x;
+        outSize[1] = size.y;
+        return true;
+    }
+
+    /**
+     * @param activity {@link Activity}
+     * @return 是否处于分屏、画中画、自由窗口等多窗口模式, API 24 以下始终返回 {@code false}
+     */
+    public static boolean isInMultiWindowMode(Activity activity) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && activity.isInMultiWindowMode();
+    }
+
+    private static boolean getWindowMetricsBounds(Activity activity, int[] outSize) {
+        if (!sWindowMetricsResolved) {
+            synchronized (WindowUtils.class) {
+                if (!sWindowMetricsResolved) {
+                    try {
+                        sGetCurrentWindowMetrics = Class.forName("android.view.WindowManager")
+                                .getMethod("getCurrentWindowMetrics");
+                        sGetBounds = Class.forName("android.view.WindowMetrics")
+                                .getMethod("getBounds");
+                    } catch (Exception e) {
+                        LogUtils.w(LogUtils.TAG_ADAPT, "WindowMetrics unavailable: %s", e);
+                    }
+                    sWindowMetricsResolved = true;
+                }
+            }
+        }
+        if (sGetCurrentWindowMetrics == null || sGetBounds == null) {
+            return false;
+        }
+        try {
+            Object windowMetrics = sGetCurrentWindowMetrics.invoke(activity.getWindowManager());
+            Rect bounds = (Rect) sGetBounds.invoke(windowMetrics);
+            if (bounds == null || bounds.width() <= 0 || bounds.height() <= 0) {
+                return false;
+            }
+            outSize[0] = bounds.width();
+            outSize[1] = bounds.height();
+            return true;
+        } catch (Exception e) {
+            LogUtils.w(LogUtils.TAG_ADAPT, "getCurrentWindowMetrics failed: %s", e);
+            return false;
+        }
+    }
+}